@@ -0,0 +1,163 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+// Effect of Bridge access hints on a sequential scan of a large file, runs on a device.
+//
+// Every scenario starts with the file dropped from the page cache, then reads it
+// sequentially by Bridge.readAt() in chunks and reports throughput to logcat (tag
+// ReadAheadBenchmark) and the instrumentation status. Arguments (-e):
+//
+//      fileSizeMb    - size of the synthetic file (1024)
+//      chunkKb       - size of a read (256)
+//      prefetchMb    - prefetch window (4)
+//
+//      ./gradlew :AndroidUsefulThings:connectedDebugAndroidTest \
+//          -Pandroid.testInstrumentationRunnerArguments.class=pfs.android.contentprovider.ReadAheadBenchmark
+@RunWith(AndroidJUnit4.class)
+public class ReadAheadBenchmark
+{
+    private static final String TAG = "ReadAheadBenchmark";
+    private static final int MB = 1024 * 1024;
+
+    private Bridge _bridge;
+    private File _file;
+    private long _fileSize;
+    private int _chunkSize;
+    private long _prefetchWindow;
+
+    @Before
+    public void setUp () throws IOException
+    {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Bundle args = InstrumentationRegistry.getArguments();
+
+        _fileSize = Long.parseLong(args.getString("fileSizeMb", "1024")) * MB;
+        _chunkSize = Integer.parseInt(args.getString("chunkKb", "256")) * 1024;
+        _prefetchWindow = Long.parseLong(args.getString("prefetchMb", "4")) * MB;
+
+        _bridge = Bridge.create(context);
+        _file = new File(context.getCacheDir(), "readahead-benchmark.bin");
+
+        if (_file.length() != _fileSize)
+            generate();
+
+        Log.i(TAG, String.format("File: %s, %d MB, chunk %d KB, prefetch window %d MB, hints %s"
+            , _file, _fileSize / MB, _chunkSize / 1024, _prefetchWindow / MB
+            , FileAdvice.isAvailable() ? "available" : "NOT available"));
+    }
+
+    private void generate () throws IOException
+    {
+        byte[] chunk = new byte[8 * MB];
+        new Random(1).nextBytes(chunk);
+
+        FileOutputStream out = new FileOutputStream(_file);
+
+        try {
+            for (long written = 0; written < _fileSize; written += chunk.length)
+                out.write(chunk, 0, (int) Math.min(chunk.length, _fileSize - written));
+
+            // Dirty pages can not be dropped from the page cache
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void sequentialScan () throws IOException
+    {
+        Bundle results = new Bundle();
+
+        // Normal first: a baseline unaffected by hints of previous runs
+        results.putDouble("normal_mbps", scan(Bridge.ACCESS_NORMAL, false));
+        results.putDouble("random_mbps", scan(Bridge.ACCESS_RANDOM, false));
+        results.putDouble("sequential_mbps", scan(Bridge.ACCESS_SEQUENTIAL, false));
+        results.putDouble("sequential_drop_behind_mbps", scan(Bridge.ACCESS_SEQUENTIAL, true));
+        results.putDouble("willneed_drop_behind_mbps", scan(Bridge.ACCESS_WILLNEED, true));
+
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+
+    // Returns throughput in MB/s
+    private double scan (int accessMode, boolean dropBehind) throws IOException
+    {
+        String path = Uri.fromFile(_file).toString();
+
+        dropCache(path);
+
+        _bridge.setPrefetchWindow(_prefetchWindow);
+        long started = System.nanoTime();
+        int handle = _bridge.openRawReadOnly(path, accessMode);
+        assertNotEquals(Bridge.INVALID_FILE_HANDLE, handle);
+
+        long total = 0;
+
+        try {
+            long[] offsets = new long[1];
+            ByteBuffer[] dsts = new ByteBuffer[] { ByteBuffer.allocateDirect(_chunkSize) };
+
+            while (total < _fileSize) {
+                offsets[0] = total;
+                dsts[0].clear();
+                long n = _bridge.readAt(handle, offsets, dsts);
+
+                if (n <= 0)
+                    break;
+
+                if (dropBehind)
+                    _bridge.consumed(handle, total, n);
+
+                total += n;
+            }
+        } finally {
+            _bridge.close(handle);
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double mbps = total / (double) MB / seconds;
+
+        Log.i(TAG, String.format("mode=%d, drop behind=%b: %d MB in %.2f s, %.1f MB/s"
+            , accessMode, dropBehind, total / MB, seconds, mbps));
+
+        assertEquals(_fileSize, total);
+        return mbps;
+    }
+
+    private void dropCache (String path)
+    {
+        _bridge.setPrefetchWindow(0);
+        int handle = _bridge.openRawReadOnly(path, Bridge.ACCESS_NORMAL);
+        assertNotEquals(Bridge.INVALID_FILE_HANDLE, handle);
+        _bridge.consumed(handle, 0, _fileSize);
+        _bridge.close(handle);
+    }
+}
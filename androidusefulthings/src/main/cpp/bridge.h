@@ -0,0 +1,31 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+#pragma once
+#include <jni.h>
+
+// Native access to `pfs.android.contentprovider.Bridge`, implemented in native-lib.cpp
+// (`daemon` library).
+//
+// Usage:
+//      jint fd = env->CallIntMethod(bridge, openRawReadOnly, uri);
+//      void const * addr; jlong size;
+//
+//      if (pfs_bridge_map_read_only(fd, 0, -1, & addr, & size)) {
+//          parse(addr, size);
+//          pfs_bridge_unmap(addr, size);
+//      }
+//
+//      env->CallVoidMethod(bridge, close, fd);
+extern "C"
+JNIEXPORT bool
+pfs_bridge_map_read_only (jint handle, jlong offset, jlong length, void const ** addr, jlong * size);
+
+extern "C"
+JNIEXPORT void
+pfs_bridge_unmap (void const * addr, jlong size);
@@ -1,5 +1,12 @@
 #include <jni.h>
+#include <fcntl.h>
+#include <sys/mman.h>
+#include <sys/stat.h>
+#include <unistd.h>
+#include <cerrno>
+#include <cstdint>
 #include <string>
+#include "bridge.h"
 
 extern "C"
 JNIEXPORT jobjectArray JNICALL
@@ -16,3 +23,83 @@ Java_pfs_android_daemon_Daemon_nativeSupportLibraries (JNIEnv * env, jclass /*cl
 
     return result;
 }
+
+// Maps a range of the content opened by `pfs.android.contentprovider.Bridge.openRawReadOnly()`
+// into memory and returns the address and length of the mapping. The mapping does not
+// depend on the descriptor: it stays valid after `Bridge.close(handle)` until it is released
+// by `pfs_bridge_unmap()`.
+//
+// `length` is the length of the range or -1 for the rest of the content.
+// Returns false if the content can not be mapped (e.g. it is streamed through a pipe).
+extern "C"
+JNIEXPORT bool
+pfs_bridge_map_read_only (jint handle, jlong offset, jlong length, void const ** addr, jlong * size)
+{
+    if (offset < 0)
+        return false;
+
+    if (length < 0) {
+        struct stat st;
+
+        if (fstat(handle, & st) != 0 || !S_ISREG(st.st_mode))
+            return false;
+
+        length = st.st_size > offset ? st.st_size - offset : 0;
+    }
+
+    // Empty range maps to no memory
+    if (length == 0) {
+        *addr = nullptr;
+        *size = 0;
+        return true;
+    }
+
+    // Offset of a mapping must be aligned to pages
+    jlong pageSize = sysconf(_SC_PAGESIZE);
+    jlong delta = offset % pageSize;
+    void * base = mmap(nullptr, static_cast<size_t>(length + delta), PROT_READ, MAP_SHARED
+        , handle, static_cast<off_t>(offset - delta));
+
+    if (base == MAP_FAILED)
+        return false;
+
+    *addr = static_cast<char const *>(base) + delta;
+    *size = length;
+    return true;
+}
+
+// Releases the mapping returned by `pfs_bridge_map_read_only()`
+extern "C"
+JNIEXPORT void
+pfs_bridge_unmap (void const * addr, jlong size)
+{
+    if (addr == nullptr || size == 0)
+        return;
+
+    auto pageSize = static_cast<uintptr_t>(sysconf(_SC_PAGESIZE));
+    auto delta = reinterpret_cast<uintptr_t>(addr) % pageSize;
+    munmap(const_cast<char *>(static_cast<char const *>(addr) - delta), static_cast<size_t>(size + delta));
+}
+
+// Values by `pfs.android.contentprovider.FileAdvice` constants (NORMAL, SEQUENTIAL etc.)
+static int const FILE_ADVICES [] = {
+      POSIX_FADV_NORMAL
+    , POSIX_FADV_SEQUENTIAL
+    , POSIX_FADV_RANDOM
+    , POSIX_FADV_WILLNEED
+    , POSIX_FADV_DONTNEED
+    , POSIX_FADV_NOREUSE
+};
+
+// Returns 0 or errno value
+extern "C"
+JNIEXPORT jint JNICALL
+Java_pfs_android_contentprovider_FileAdvice_nativeAdvise (JNIEnv * /*env*/, jclass /*clazz*/
+    , jint fd, jlong offset, jlong length, jint advice)
+{
+    if (advice < 0 || advice >= static_cast<jint>(sizeof(FILE_ADVICES) / sizeof(FILE_ADVICES[0])))
+        return EINVAL;
+
+    // 64-bit offsets on 32-bit ABIs too
+    return posix_fadvise64(fd, offset, length, FILE_ADVICES[advice]);
+}
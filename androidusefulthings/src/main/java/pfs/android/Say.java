@@ -45,6 +45,12 @@ public final class Say
         _pattern = "%s";
     }
 
+    // Lets callers skip building trace messages that would be dropped
+    public static boolean isTraceEnabled (int level)
+    {
+        return level > 0 && level <= _traceLevel;
+    }
+
     public static void t (int level, String text)
     {
         if (level > 0 && level <= _traceLevel)
@@ -0,0 +1,136 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Chains of document IDs from a root document down to a document.
+//
+// Parents are derived from the document ID itself (the path part of the ID
+// up to the last separator) until a top directory is reached, whose parent is
+// the root document it is published under. A top directory published as a
+// root by itself has no parent. No file system access is needed and the
+// result depends only on the configured roots, so chains never go stale.
+// Document IDs with empty, `.` or `..` path segments below a top directory
+// have no chain: lexically they are under the top directory, but the file
+// they resolve to may be anywhere.
+// Chains of parents are reused for their children through a bounded LRU.
+class AncestorChains
+{
+    // Top directory docId -> docId of the root document above it (null if none)
+    private final Map<String, String> _topDirParents;
+    private final HashSet<String> _rootDocIds = new HashSet<String>();
+
+    // Access ordered docId -> chain from the root document, guarded by `this`
+    private final LinkedHashMap<String, String[]> _chains;
+
+    AncestorChains (Map<String, String> topDirParents, final int maxEntries)
+    {
+        _topDirParents = topDirParents;
+
+        for (String rootDocId : topDirParents.values()) {
+            if (rootDocId != null)
+                _rootDocIds.add(rootDocId);
+        }
+
+        _chains = new LinkedHashMap<String, String[]>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<String, String[]> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return immutable list of document IDs starting from a root document and ending with
+     *         `docId`, or null if the document is not under any top directory
+     */
+    List<String> chain (String docId)
+    {
+        String[] chain = chainArray(docId);
+        return chain != null ? Collections.unmodifiableList(Arrays.asList(chain)) : null;
+    }
+
+    /**
+     * @return parent document ID, or null for a root document or a document not under any
+     *         top directory
+     */
+    String parent (String docId)
+    {
+        String[] chain = chainArray(docId);
+        return chain != null && chain.length > 1 ? chain[chain.length - 2] : null;
+    }
+
+    boolean isTopDir (String docId)
+    {
+        return _topDirParents.containsKey(docId);
+    }
+
+    private String[] chainArray (String docId)
+    {
+        if (_rootDocIds.contains(docId))
+            return new String[] { docId };
+
+        synchronized (this) {
+            String[] chain = _chains.get(docId);
+
+            if (chain != null)
+                return chain;
+        }
+
+        String[] parentChain;
+
+        if (_topDirParents.containsKey(docId)) {
+            String rootDocId = _topDirParents.get(docId);
+            parentChain = rootDocId != null ? new String[] { rootDocId } : new String[0];
+        } else {
+            String parentDocId = parentOf(docId);
+
+            if (parentDocId == null)
+                return null;
+
+            parentChain = chainArray(parentDocId);
+
+            if (parentChain == null)
+                return null;
+        }
+
+        String[] chain = Arrays.copyOf(parentChain, parentChain.length + 1);
+        chain[parentChain.length] = docId;
+
+        synchronized (this) {
+            _chains.put(docId, chain);
+        }
+
+        return chain;
+    }
+
+    // Lexical parent: "files:A/B/c" -> "files:A/B", null if the last segment is not a name
+    private static String parentOf (String docId)
+    {
+        int pathStart = docId.indexOf(':', 1) + 1;
+        int lastSlash = docId.lastIndexOf('/');
+
+        if (pathStart <= 0 || lastSlash < pathStart)
+            return null;
+
+        String name = docId.substring(lastSlash + 1);
+
+        if (name.isEmpty() || name.equals(".") || name.equals(".."))
+            return null;
+
+        return docId.substring(0, lastSlash);
+    }
+}
@@ -8,14 +8,46 @@
 ////////////////////////////////////////////////////////////////////////////////
 package pfs.android.contentprovider;
 
+import android.content.ContentProviderClient;
+import android.content.ContentResolver;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.os.ParcelFileDescriptor;
+import android.os.RemoteException;
+import android.provider.DocumentsContract;
 import android.provider.OpenableColumns;
+import android.util.Log;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import pfs.android.Say;
 
@@ -23,14 +55,76 @@ public class Bridge
 {
     public static final int INVALID_FILE_HANDLE = -1;
 
+    // Access patterns for openRawReadOnly(path, accessMode)
+    public static final int ACCESS_NORMAL     = 0; // kernel defaults
+    public static final int ACCESS_SEQUENTIAL = 1; // larger read-ahead, prefetch window
+    public static final int ACCESS_RANDOM     = 2; // no read-ahead
+    public static final int ACCESS_WILLNEED   = 3; // prefetch window only
+
+    // Columns for a projection-limited query of a document
+    private static final String[] DOCUMENT_INFO_PROJECTION = new String[] {
+          DocumentsContract.Document.COLUMN_DISPLAY_NAME
+        , DocumentsContract.Document.COLUMN_SIZE
+        , DocumentsContract.Document.COLUMN_MIME_TYPE
+        , DocumentsContract.Document.COLUMN_LAST_MODIFIED
+    };
+
+    // Columns any openable content URI must support
+    // Validation of local copies of content
+    private static final String[] CACHE_KEY_PROJECTION = new String[] {
+          DocumentsContract.Document.COLUMN_SIZE
+        , DocumentsContract.Document.COLUMN_LAST_MODIFIED
+    };
+
+    private static final String[] OPENABLE_INFO_PROJECTION = new String[] {
+          OpenableColumns.DISPLAY_NAME
+        , OpenableColumns.SIZE
+    };
+
+    // Threads opening documents asynchronously and querying file info from providers that
+    // do not support bulk calls
+    private static final int IO_THREADS = 4;
+    private static final long IO_THREAD_KEEP_ALIVE = 30; // seconds
+
+    // Pooled provider client is released after this time of not being used
+    private static final long CLIENT_IDLE_TIMEOUT = 10000; // milliseconds
+
+    private static final long DEFAULT_PREFETCH_WINDOW = 4 * 1024 * 1024;
+
+    // Prefetch has its own thread, so read-through of windows never delays opens and info
+    // queries. Windows queued beyond this are dropped, oldest first: their consumer has
+    // likely read past them already.
+    private static final int PREFETCH_QUEUE_SIZE = 8;
+
+    // Buffer for reading prefetched content if access hints are not available
+    private static final int READ_THROUGH_BUFFER_SIZE = 64 * 1024;
+
     android.content.Context _context;
-    private HashMap<Integer, ParcelFileDescriptor> _parcelFds = new HashMap<Integer, ParcelFileDescriptor>();
+
+    // Descriptors opened by openRawReadOnly(), accessed by native code from several threads
+    private final DescriptorRegistry _parcelFds = new DescriptorRegistry();
+
+    // Authority -> whether it responds to UnifiedContentProvider.Caller.METHOD_FILE_INFOS
+    private final ConcurrentHashMap<String, Boolean> _bulkInfoSupported = new ConcurrentHashMap<String, Boolean>();
+    private ExecutorService _ioExecutor = null;
+    private ExecutorService _prefetchExecutor = null;
+
+    // Provider clients of content URIs authorities
+    private final ProviderClientPool _clients;
+
+    // Bytes read into the page cache ahead of a sequential consumer, 0 disables prefetch
+    private volatile long _prefetchWindow = DEFAULT_PREFETCH_WINDOW;
+
+    // Local copies of content, null if disabled (see setContentCache())
+    private volatile ContentCache _contentCache = null;
+    private volatile Set<String> _cachedAuthorities = null;
 
     private Bridge (android.content.Context ctx) throws NullPointerException
     {
         if (ctx == null )
             throw new NullPointerException("Android context");
         _context = ctx;
+        _clients = new ProviderClientPool(ctx.getContentResolver(), CLIENT_IDLE_TIMEOUT);
     }
 
     public static Bridge create (android.content.Context ctx)
@@ -44,39 +138,816 @@ public class Bridge
     }
 
     public int openRawReadOnly (String path)
+    {
+        return openRawReadOnly(path, null);
+    }
+
+    /**
+     * Opens the content and advises the kernel of the access pattern (posix_fadvise(2)).
+     * ACCESS_SEQUENTIAL and ACCESS_WILLNEED also prefetch the first window of content (see
+     * setPrefetchWindow()) on a background thread. A streaming consumer keeps the window
+     * ahead of it and releases what it has read by consumed().
+     *
+     * @param accessMode ACCESS_NORMAL, ACCESS_SEQUENTIAL, ACCESS_RANDOM or ACCESS_WILLNEED
+     */
+    public int openRawReadOnly (String path, int accessMode)
+    {
+        int fd = openRawReadOnly(path, null);
+
+        if (fd == INVALID_FILE_HANDLE)
+            return fd;
+
+        switch (accessMode) {
+            case ACCESS_SEQUENTIAL:
+                FileAdvice.advise(fd, 0, 0, FileAdvice.SEQUENTIAL);
+                prefetch(fd, 0, _prefetchWindow);
+                break;
+            case ACCESS_RANDOM:
+                FileAdvice.advise(fd, 0, 0, FileAdvice.RANDOM);
+                break;
+            case ACCESS_WILLNEED:
+                prefetch(fd, 0, _prefetchWindow);
+                break;
+            default:
+                break;
+        }
+
+        return fd;
+    }
+
+    /**
+     * @param bytes the size of content prefetched ahead of a sequential consumer, 0 disables
+     *              prefetch
+     */
+    public void setPrefetchWindow (long bytes)
+    {
+        _prefetchWindow = Math.max(0, bytes);
+    }
+
+    /**
+     * Tells that a streaming consumer has read the range and will not read it again. Its
+     * pages are dropped from the page cache (POSIX_FADV_DONTNEED), so a large scan does not
+     * evict other data, and the prefetch window following the range is read ahead.
+     *
+     * @param handle the handle returned by openRawReadOnly()
+     */
+    public void consumed (int handle, long offset, long length)
+    {
+        if (length <= 0 || _parcelFds.get(handle) == null)
+            return;
+
+        FileAdvice.advise(handle, offset, length, FileAdvice.DONTNEED);
+        prefetch(handle, offset + length, _prefetchWindow);
+    }
+
+    // Reads the range into the page cache on an I/O thread
+    private void prefetch (final int handle, final long offset, final long length)
+    {
+        final ParcelFileDescriptor parcelFD = _parcelFds.get(handle);
+
+        if (parcelFD == null || length <= 0)
+            return;
+
+        prefetchExecutor().execute(new Runnable() {
+            @Override
+            public void run ()
+            {
+                // Closed meanwhile, the number may belong to another file already
+                if (_parcelFds.get(handle) != parcelFD)
+                    return;
+
+                if (FileAdvice.advise(handle, offset, length, FileAdvice.WILLNEED))
+                    return;
+
+                if (FileAdvice.isAvailable())
+                    return; // Not a file (a pipe), nothing to prefetch
+
+                // No hints: read through the range, does not own the descriptor
+                FileChannel channel = new FileInputStream(parcelFD.getFileDescriptor()).getChannel();
+                ByteBuffer buffer = ByteBuffer.allocateDirect(READ_THROUGH_BUFFER_SIZE);
+                long position = offset;
+
+                try {
+                    while (position < offset + length) {
+                        buffer.clear();
+                        int n = channel.read(buffer, position);
+
+                        if (n < 0)
+                            break;
+
+                        position += n;
+                    }
+                } catch (IOException ex) {
+                    Say.d(String.format("Prefetch failure: fd=%d: %s", handle, ex.getMessage()));
+                }
+            }
+        });
+    }
+
+    private int openRawReadOnly (String path, CancellationSignal signal)
     {
         ParcelFileDescriptor parcelFD = null;
 
         try {
             Say.d("Opening file: " + path);
-            parcelFD = _context.getContentResolver().openFileDescriptor(Uri.parse(path), "r");
+            Uri uri = Uri.parse(path);
+            parcelFD = openCached(uri, signal);
+
+            if (parcelFD == null)
+                parcelFD = openFileDescriptor(uri, signal);
         } catch (FileNotFoundException ex) {
             Say.d(String.format("Open file failure: %s: %s", Uri.parse(path), ex.getMessage()));
             return INVALID_FILE_HANDLE;
+        } catch (OperationCanceledException ex) {
+            Say.d(String.format("Open file canceled: %s", path));
+            return INVALID_FILE_HANDLE;
         }
 
         int fd = parcelFD.getFd();
         Say.d(String.format("File opened: %s (fd=%d)", path, fd));
-        _parcelFds.put(fd, parcelFD);
+        ParcelFileDescriptor stale = _parcelFds.put(fd, parcelFD, path);
+
+        // The number can be reused only after the previous descriptor was closed
+        // bypassing close(), the entry is stale
+        if (stale != null)
+            Say.w(String.format("Stale descriptor replaced: fd=%d", fd));
+
         return fd;
     }
 
-    public void close (int handle)
+    /**
+     * Enables caching of content of slow (e.g. remote-backed) providers. Content is copied
+     * into a cache under getCacheDir() on first open, later opens are served from the local
+     * copy while the provider reports the same size and modification time. The least
+     * recently used copies are deleted when their total size exceeds the limit.
+     *
+     * Content with unknown size or modification time is never cached: the copy could not
+     * be validated.
+     *
+     * @param maxBytes the limit of total size of copies, 0 disables the cache (copies are
+     *                 kept on disk for the next enabling)
+     * @param authorities the authorities of providers to cache content of, null for all
+     */
+    public void setContentCache (long maxBytes, Collection<String> authorities)
     {
+        _cachedAuthorities = authorities != null ? new HashSet<String>(authorities) : null;
+        _contentCache = maxBytes > 0
+            ? new ContentCache(new File(_context.getCacheDir(), "content"), maxBytes)
+            : null;
+    }
+
+    /**
+     * Deletes all local copies of content.
+     */
+    public void clearContentCache ()
+    {
+        ContentCache cache = _contentCache;
+
+        if (cache != null)
+            cache.clear();
+    }
+
+    // Local copy of the content, null if it is not cached and can not be. Only documents
+    // report modification time, others are not queried at all.
+    private ParcelFileDescriptor openCached (final Uri uri, final CancellationSignal signal)
+    {
+        ContentCache cache = _contentCache;
+        Set<String> authorities = _cachedAuthorities;
+
+        if (cache == null || !ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())
+                || (authorities != null && !authorities.contains(uri.getAuthority()))
+                || !DocumentsContract.isDocumentUri(_context, uri))
+            return null;
+
+        ContentInfo info = newFileInfo(uri);
+        Cursor cursor = query(uri, CACHE_KEY_PROJECTION);
+
+        try {
+            if (cursor == null || !cursor.moveToFirst())
+                return null;
+
+            int sizeIndex = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_SIZE);
+            int modTimeIndex = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+
+            if (sizeIndex < 0 || modTimeIndex < 0 || cursor.isNull(sizeIndex) || cursor.isNull(modTimeIndex))
+                return null;
+
+            info.size = cursor.getLong(sizeIndex);
+            info.modTime = cursor.getLong(modTimeIndex);
+        } finally {
+            if (cursor != null)
+                cursor.close();
+        }
+
+        if (info.size < 0 || info.modTime <= 0)
+            return null;
+
+        try {
+            File copy = cache.get(info, new ContentCache.Source() {
+                @Override
+                public ParcelFileDescriptor open () throws FileNotFoundException
+                {
+                    return openFileDescriptor(uri, signal);
+                }
+            }, signal);
+
+            // May be evicted meanwhile, then opened from the provider
+            return ParcelFileDescriptor.open(copy, ParcelFileDescriptor.MODE_READ_ONLY);
+        } catch (FileNotFoundException ex) {
+            Say.d(String.format("Content cache failure: %s: %s", uri, ex.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Opens documents in parallel on the I/O threads, the calling thread does not wait for
+     * Binder transactions.
+     *
+     * Opening not started yet is skipped after the signal is canceled, opening in progress
+     * is canceled if the provider supports it. A descriptor opened in spite of cancellation
+     * is closed. Descriptors of futures completed with a valid handle must be closed by
+     * close() as usual.
+     *
+     * @param paths the URIs of documents
+     * @param signal the cancellation signal or null
+     * @return futures of handles in the order of paths, INVALID_FILE_HANDLE for a document
+     *         failed to open or canceled
+     */
+    public List<Future<Integer>> openAsync (List<String> paths, final CancellationSignal signal)
+    {
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>(paths.size());
+
+        for (final String path : paths) {
+            futures.add(ioExecutor().submit(new Callable<Integer>() {
+                @Override
+                public Integer call ()
+                {
+                    if (signal != null && signal.isCanceled())
+                        return INVALID_FILE_HANDLE;
+
+                    int handle = openRawReadOnly(path, signal);
+
+                    if (handle != INVALID_FILE_HANDLE && signal != null && signal.isCanceled()) {
+                        close(handle);
+                        return INVALID_FILE_HANDLE;
+                    }
+
+                    return handle;
+                }
+            }));
+        }
+
+        return futures;
+    }
+
+    /**
+     * Opens documents in parallel without cancellation.
+     *
+     * @see #openAsync(List, CancellationSignal)
+     */
+    public List<Future<Integer>> openAsync (List<String> paths)
+    {
+        return openAsync(paths, null);
+    }
+
+    /**
+     * Serves many small positional reads from the content opened by openRawReadOnly() in
+     * one call. Each read fills `dsts[i]` from its position up to its limit with the content
+     * starting at `offsets[i]` (less at the end of the content) and advances its position.
+     * Reads do not use or change the file offset, so they can be issued from several
+     * threads. They are served in ascending order of offsets.
+     *
+     * @param handle the handle returned by openRawReadOnly()
+     * @return total number of bytes read
+     * @throws IOException if the handle is not open or reading failed
+     */
+    public long readAt (int handle, long[] offsets, ByteBuffer[] dsts) throws IOException
+    {
+        if (offsets.length != dsts.length)
+            throw new IllegalArgumentException("Numbers of offsets and buffers differ");
+
         ParcelFileDescriptor parcelFD = _parcelFds.get(handle);
 
+        if (parcelFD == null)
+            throw new IOException(String.format("Read failure: fd=%d is not open", handle));
+
+        // Does not own the descriptor, see mapReadOnly()
+        FileChannel channel = new FileInputStream(parcelFD.getFileDescriptor()).getChannel();
+        int[] order = ascendingOrder(offsets);
+        long total = 0;
+
+        for (int k = 0; k < offsets.length; k++) {
+            int i = order != null ? order[k] : k;
+            ByteBuffer dst = dsts[i];
+            long position = offsets[i];
+
+            while (dst.hasRemaining()) {
+                int n = channel.read(dst, position);
+
+                if (n < 0)
+                    break;
+
+                position += n;
+                total += n;
+            }
+        }
+
+        return total;
+    }
+
+    // Indices of offsets in ascending order of offsets, null if they are already ascending
+    private static int[] ascendingOrder (final long[] offsets)
+    {
+        boolean sorted = true;
+
+        for (int i = 1; i < offsets.length && sorted; i++)
+            sorted = offsets[i - 1] <= offsets[i];
+
+        if (sorted)
+            return null;
+
+        Integer[] boxed = new Integer[offsets.length];
+
+        for (int i = 0; i < boxed.length; i++)
+            boxed[i] = i;
+
+        Arrays.sort(boxed, new Comparator<Integer>() {
+            @Override
+            public int compare (Integer a, Integer b)
+            {
+                return Long.compare(offsets[a], offsets[b]);
+            }
+        });
+
+        int[] order = new int[boxed.length];
+
+        for (int i = 0; i < order.length; i++)
+            order[i] = boxed[i];
+
+        return order;
+    }
+
+    // Content URIs are opened by the pooled provider client, others (`file` etc.) by the
+    // content resolver
+    private ParcelFileDescriptor openFileDescriptor (final Uri uri, final CancellationSignal signal)
+        throws FileNotFoundException
+    {
+        if (!ContentResolver.SCHEME_CONTENT.equals(uri.getScheme()))
+            return _context.getContentResolver().openFileDescriptor(uri, "r", signal);
+
+        ParcelFileDescriptor parcelFD;
+
+        try {
+            parcelFD = _clients.execute(uri.getAuthority(), new ProviderClientPool.Operation<ParcelFileDescriptor>() {
+                @Override
+                public ParcelFileDescriptor run (ContentProviderClient client)
+                    throws RemoteException, FileNotFoundException
+                {
+                    return client.openFile(uri, "r", signal);
+                }
+            });
+        } catch (RemoteException ex) {
+            throw new FileNotFoundException(String.format("Provider failure: %s: %s", uri, ex));
+        }
+
+        if (parcelFD == null)
+            throw new FileNotFoundException("Provider returned nothing for " + uri);
+
+        return parcelFD;
+    }
+
+    // Query by the pooled provider client, null on failure
+    private Cursor query (final Uri uri, final String[] projection)
+    {
+        try {
+            return _clients.execute(uri.getAuthority(), new ProviderClientPool.Operation<Cursor>() {
+                @Override
+                public Cursor run (ContentProviderClient client) throws RemoteException
+                {
+                    return client.query(uri, projection, null, null, null);
+                }
+            });
+        } catch (RemoteException | FileNotFoundException ex) {
+            Say.d(String.format("Query failure: %s: %s", uri, ex));
+            return null;
+        }
+    }
+
+    // MIME type by the pooled provider client, null on failure
+    private String getType (final Uri uri)
+    {
+        try {
+            return _clients.execute(uri.getAuthority(), new ProviderClientPool.Operation<String>() {
+                @Override
+                public String run (ContentProviderClient client) throws RemoteException
+                {
+                    return client.getType(uri);
+                }
+            });
+        } catch (RemoteException | FileNotFoundException ex) {
+            Say.d(String.format("Get type failure: %s: %s", uri, ex));
+            return null;
+        }
+    }
+
+    // Provider call by the pooled provider client, null on failure
+    private Bundle call (String authority, final String method, final Bundle args)
+    {
+        try {
+            return _clients.execute(authority, new ProviderClientPool.Operation<Bundle>() {
+                @Override
+                public Bundle run (ContentProviderClient client) throws RemoteException
+                {
+                    return client.call(method, null, args);
+                }
+            });
+        } catch (RemoteException | FileNotFoundException ex) {
+            Say.d(String.format("Call failure: %s: %s: %s", authority, method, ex));
+            return null;
+        }
+    }
+
+    /**
+     * Releases pooled provider clients now instead of after the idle timeout.
+     */
+    public void releaseProviderClients ()
+    {
+        _clients.releaseAll();
+    }
+
+    public void close (int handle)
+    {
+        // Removed first: of concurrent calls with the same handle only one closes it
+        ParcelFileDescriptor parcelFD = _parcelFds.remove(handle);
+
         Say.d(String.format("Close file: fd=%d", handle));
 
         if (parcelFD != null) {
             try {
                 parcelFD.close();
             } catch (IOException ex) {
-            } finally {
-                _parcelFds.remove(handle);
             }
         }
     }
 
+    /**
+     * Maps the whole content opened by openRawReadOnly() into memory.
+     *
+     * @see #mapReadOnly(int, long, long)
+     */
+    public MappedByteBuffer mapReadOnly (int handle)
+    {
+        return mapReadOnly(handle, 0, -1);
+    }
+
+    /**
+     * Maps a range of the content opened by openRawReadOnly() into memory, so it can be
+     * parsed without copying. The mapping does not depend on the descriptor, it stays valid
+     * after close(handle) and is released by the garbage collector with the buffer.
+     *
+     * Native code maps and unmaps explicitly by pfs_bridge_map_read_only() and
+     * pfs_bridge_unmap() (see native-lib.cpp).
+     *
+     * @param handle the handle returned by openRawReadOnly()
+     * @param offset the offset of the range
+     * @param length the length of the range or -1 for the rest of the content
+     * @return the read only buffer or null if the handle is not open or the content can
+     *         not be mapped (e.g. it is streamed through a pipe by the provider)
+     */
+    public MappedByteBuffer mapReadOnly (int handle, long offset, long length)
+    {
+        ParcelFileDescriptor parcelFD = _parcelFds.get(handle);
+
+        if (parcelFD == null) {
+            Say.w(String.format("Map failure: fd=%d is not open", handle));
+            return null;
+        }
+
+        // The channel shares the descriptor and is not closed: the descriptor is closed by
+        // close(handle) only. A stream constructed from a FileDescriptor does not own it.
+        FileChannel channel = new FileInputStream(parcelFD.getFileDescriptor()).getChannel();
+        MappedByteBuffer buffer;
+
+        try {
+            if (length < 0)
+                length = Math.max(0, channel.size() - offset);
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        } catch (IOException | IllegalArgumentException ex) {
+            Say.d(String.format("Map failure: fd=%d, offset=%d, length=%d: %s"
+                , handle, offset, length, ex.getMessage()));
+            return null;
+        }
+
+        // Closed meanwhile, the number may belong to another file already
+        if (_parcelFds.get(handle) != parcelFD) {
+            Say.w(String.format("Map failure: fd=%d closed concurrently", handle));
+            return null;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Enables recording of opening time, path and stack trace of descriptors opened by
+     * openRawReadOnly() to find leaks. Costs an allocation and a stack walk per opening.
+     */
+    public void setDescriptorTracking (boolean enable)
+    {
+        _parcelFds.setTracking(enable);
+    }
+
+    /**
+     * @return descriptors opened by openRawReadOnly() and not closed yet
+     */
+    public List<OpenDescriptor> openDescriptors ()
+    {
+        return _parcelFds.snapshot();
+    }
+
+    /**
+     * Force closes descriptors opened at least `minAgeMillis` ago and logs them as leaked.
+     * Descriptors opened with tracking disabled have unknown age and are closed only if
+     * `minAgeMillis` is 0.
+     *
+     * @return number of closed descriptors
+     */
+    public int closeLeakedDescriptors (long minAgeMillis)
+    {
+        long now = System.currentTimeMillis();
+        int count = 0;
+
+        for (OpenDescriptor leaked : _parcelFds.snapshot()) {
+            if (minAgeMillis > 0 && (leaked.openedAt == 0 || now - leaked.openedAt < minAgeMillis))
+                continue;
+
+            ParcelFileDescriptor parcelFD = _parcelFds.remove(leaked);
+
+            if (parcelFD == null)
+                continue;
+
+            Say.w("Leaked descriptor closed: " + leaked
+                + (leaked.openedBy != null ? "\n" + Log.getStackTraceString(leaked.openedBy) : ""));
+
+            try {
+                parcelFD.close();
+            } catch (IOException ex) {
+            }
+
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Bulk version of getFileInfo().
+     *
+     * URIs are grouped by authority. A group served by UnifiedContentProvider is
+     * resolved by one call() per Caller.BATCH_SIZE URIs. Other groups are queried in
+     * parallel, requesting only the needed columns.
+     *
+     * @param uris the content URIs
+     * @return info in the order of URIs
+     */
+    public ContentInfo[] getFileInfos (List<Uri> uris)
+    {
+        ContentInfo[] infos = new ContentInfo[uris.size()];
+        LinkedHashMap<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+
+        for (int i = 0; i < uris.size(); i++) {
+            Uri uri = uris.get(i);
+
+            if (!ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+                infos[i] = getFileInfo(uri);
+                continue;
+            }
+
+            List<Integer> group = groups.get(uri.getAuthority());
+
+            if (group == null) {
+                group = new ArrayList<Integer>();
+                groups.put(uri.getAuthority(), group);
+            }
+
+            group.add(i);
+        }
+
+        List<Future<?>> pending = new ArrayList<Future<?>>();
+
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<Integer> rest = group.getValue();
+
+            if (!Boolean.FALSE.equals(_bulkInfoSupported.get(group.getKey())))
+                rest = callFileInfos(group.getKey(), uris, group.getValue(), infos);
+
+            for (final int i : rest) {
+                final Uri uri = uris.get(i);
+                final ContentInfo[] result = infos;
+
+                pending.add(ioExecutor().submit(new Runnable() {
+                    @Override
+                    public void run ()
+                    {
+                        result[i] = queryFileInfo(uri);
+                    }
+                }));
+            }
+        }
+
+        for (Future<?> f : pending) {
+            try {
+                f.get();
+            } catch (ExecutionException ex) {
+                Say.w("File info query failure: " + ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Failed queries
+        for (int i = 0; i < infos.length; i++) {
+            if (infos[i] == null)
+                infos[i] = completeFileInfo(newFileInfo(uris.get(i)), uris.get(i));
+        }
+
+        return infos;
+    }
+
+    // Resolves URIs of the group by UnifiedContentProvider.Caller.METHOD_FILE_INFOS calls.
+    // Returns indices left to be queried (all of them if the provider does not support it).
+    private List<Integer> callFileInfos (String authority, List<Uri> uris, List<Integer> group
+        , ContentInfo[] infos)
+    {
+        int batchSize = UnifiedContentProvider.Caller.BATCH_SIZE;
+
+        for (int from = 0; from < group.size(); from += batchSize) {
+            List<Integer> batch = group.subList(from, Math.min(group.size(), from + batchSize));
+            String[] batchUris = new String[batch.size()];
+
+            for (int k = 0; k < batchUris.length; k++)
+                batchUris[k] = uris.get(batch.get(k)).toString();
+
+            Bundle args = new Bundle();
+            args.putStringArray(UnifiedContentProvider.Caller.ARG_1, batchUris);
+            Bundle result = null;
+
+            try {
+                result = call(authority, UnifiedContentProvider.Caller.METHOD_FILE_INFOS, args);
+            } catch (RuntimeException ex) {
+                // Other provider, may throw anything for unknown method
+                Say.d(String.format("Bulk file info not supported by %s: %s", authority, ex));
+            }
+
+            int[] errors = result != null ? result.getIntArray(UnifiedContentProvider.Caller.RESULT_ERRORS) : null;
+
+            if (errors == null) {
+                // Only the first call can tell the provider does not support the method
+                if (from == 0)
+                    _bulkInfoSupported.put(authority, false);
+
+                return group.subList(from, group.size());
+            }
+
+            _bulkInfoSupported.put(authority, true);
+
+            String[] displayNames = result.getStringArray(UnifiedContentProvider.Caller.RESULT_DISPLAY_NAMES);
+            String[] mimeTypes = result.getStringArray(UnifiedContentProvider.Caller.RESULT_MIME_TYPES);
+            long[] sizes = result.getLongArray(UnifiedContentProvider.Caller.RESULT_SIZES);
+            long[] modTimes = result.getLongArray(UnifiedContentProvider.Caller.RESULT_MOD_TIMES);
+
+            for (int k = 0; k < errors.length; k++) {
+                Uri uri = uris.get(batch.get(k));
+                ContentInfo fileInfo = newFileInfo(uri);
+
+                if (errors[k] == 0) {
+                    fileInfo.displayName = displayNames[k];
+                    fileInfo.mimeType = mimeTypes[k];
+                    fileInfo.size = sizes[k];
+                    fileInfo.modTime = modTimes[k];
+                }
+
+                infos[batch.get(k)] = completeFileInfo(fileInfo, uri);
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    // Queries only the needed columns. Document URIs give MIME type and modification time
+    // by the same query, others need a getType() call.
+    private ContentInfo queryFileInfo (Uri uri)
+    {
+        ContentInfo fileInfo = newFileInfo(uri);
+        boolean isDocument = DocumentsContract.isDocumentUri(_context, uri);
+        Cursor cursor = query(uri, isDocument ? DOCUMENT_INFO_PROJECTION : OPENABLE_INFO_PROJECTION);
+
+        try {
+            if (cursor != null && cursor.moveToFirst()) {
+                int displayNameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                int sizeIndex = cursor.getColumnIndex(OpenableColumns.SIZE);
+                int mimeTypeIndex = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_MIME_TYPE);
+                int modTimeIndex = cursor.getColumnIndex(DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+
+                if (displayNameIndex >= 0)
+                    fileInfo.displayName = cursor.getString(displayNameIndex);
+
+                if (sizeIndex >= 0 && !cursor.isNull(sizeIndex))
+                    fileInfo.size = cursor.getLong(sizeIndex);
+
+                if (mimeTypeIndex >= 0)
+                    fileInfo.mimeType = cursor.getString(mimeTypeIndex);
+
+                if (modTimeIndex >= 0)
+                    fileInfo.modTime = cursor.getLong(modTimeIndex);
+            }
+        } finally {
+            if (cursor != null)
+                cursor.close();
+        }
+
+        if (!isDocument)
+            fileInfo.mimeType = getType(uri);
+
+        return completeFileInfo(fileInfo, uri);
+    }
+
+    private synchronized ExecutorService ioExecutor ()
+    {
+        if (_ioExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS
+                , IO_THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>()
+                , new ThreadFactory() {
+                    @Override
+                    public Thread newThread (Runnable r)
+                    {
+                        Thread thread = new Thread(r, "Bridge I/O");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+            // Do not keep idle threads
+            executor.allowCoreThreadTimeOut(true);
+            _ioExecutor = executor;
+        }
+
+        return _ioExecutor;
+    }
+
+    private synchronized ExecutorService prefetchExecutor ()
+    {
+        if (_prefetchExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1
+                , IO_THREAD_KEEP_ALIVE, TimeUnit.SECONDS
+                , new ArrayBlockingQueue<Runnable>(PREFETCH_QUEUE_SIZE)
+                , new ThreadFactory() {
+                    @Override
+                    public Thread newThread (Runnable r)
+                    {
+                        Thread thread = new Thread(r, "Bridge prefetch");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+            // Do not keep idle threads
+            executor.allowCoreThreadTimeOut(true);
+            _prefetchExecutor = executor;
+        }
+
+        return _prefetchExecutor;
+    }
+
+    private static ContentInfo newFileInfo (Uri uri)
+    {
+        ContentInfo fileInfo = new ContentInfo();
+        fileInfo.uri = uri.toString();
+        fileInfo.displayName = null;
+        fileInfo.mimeType = null;
+        fileInfo.size = -1;
+        return fileInfo;
+    }
+
+    // Same defaults as getFileInfo() for a file whose name is not known
+    private static ContentInfo completeFileInfo (ContentInfo fileInfo, Uri uri)
+    {
+        if (fileInfo.displayName == null) {
+            fileInfo.displayName = uri.getPath();
+            int cut = fileInfo.displayName.lastIndexOf('/');
+
+            if (cut != -1)
+                fileInfo.displayName = fileInfo.displayName.substring(cut + 1);
+
+            if (fileInfo.mimeType == null)
+                fileInfo.mimeType = "application/octet-stream";
+        }
+
+        return fileInfo;
+    }
+
     public ContentInfo getFileInfo (Uri uri)
     {
         ContentInfo fileInfo = new ContentInfo();
@@ -86,8 +957,8 @@ public class Bridge
         fileInfo.size = -1;
 
         if (uri.getScheme().equals("content")) {
-            Cursor cursor = _context.getContentResolver().query(uri, null, null, null, null);
-            fileInfo.mimeType = _context.getContentResolver().getType(uri);
+            Cursor cursor = query(uri, null);
+            fileInfo.mimeType = getType(uri);
 
             try {
                 if (cursor != null && cursor.moveToFirst()) {
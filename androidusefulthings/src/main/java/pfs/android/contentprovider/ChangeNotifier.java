@@ -0,0 +1,83 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+// Debounced, batched change notifications.
+//
+// URIs reported within the debounce window are collected into a set and
+// notified once when the window expires, so a burst of writes into the same
+// directory produces a single notification per URI.
+class ChangeNotifier
+{
+    private final ContentResolver _resolver;
+    private final Handler _handler;
+    private final long _debounceMillis;
+
+    // Guarded by `this`
+    private LinkedHashSet<Uri> _pending = new LinkedHashSet<Uri>();
+    private boolean _scheduled = false;
+
+    private final Runnable _flush = new Runnable() {
+        @Override
+        public void run ()
+        {
+            flush();
+        }
+    };
+
+    ChangeNotifier (ContentResolver resolver, Handler handler, long debounceMillis)
+    {
+        _resolver = resolver;
+        _handler = handler;
+        _debounceMillis = debounceMillis;
+    }
+
+    void notifyChange (Uri uri)
+    {
+        synchronized (this) {
+            _pending.add(uri);
+
+            if (_scheduled)
+                return;
+
+            _scheduled = true;
+        }
+
+        _handler.postDelayed(_flush, _debounceMillis);
+    }
+
+    private void flush ()
+    {
+        LinkedHashSet<Uri> uris;
+
+        synchronized (this) {
+            uris = _pending;
+            _pending = new LinkedHashSet<Uri>();
+            _scheduled = false;
+        }
+
+        if (uris.isEmpty())
+            return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            _resolver.notifyChange(new ArrayList<Uri>(uris), null, 0);
+        } else {
+            for (Uri uri : uris)
+                _resolver.notifyChange(uri, null, false);
+        }
+    }
+}
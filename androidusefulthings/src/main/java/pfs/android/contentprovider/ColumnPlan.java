@@ -0,0 +1,136 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.provider.DocumentsContract.Document;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Document projection compiled into column kinds and the set of file
+// attributes required to fill them.
+//
+// Plans are cached per distinct projection, so the columns are parsed only
+// once however many times the same projection is queried.
+final class ColumnPlan
+{
+    static final int COLUMN_UNKNOWN = -1;
+    static final int COLUMN_DOCUMENT_ID = 0;
+    static final int COLUMN_DISPLAY_NAME = 1;
+    static final int COLUMN_SIZE = 2;
+    static final int COLUMN_MIME_TYPE = 3;
+    static final int COLUMN_LAST_MODIFIED = 4;
+    static final int COLUMN_FLAGS = 5;
+    static final int COLUMN_ICON = 6;
+
+    // File attributes needed by the plan
+    static final int NEED_STAT = 0x01;     // size, modification time, file type
+    static final int NEED_MIME = 0x02;
+    static final int NEED_WRITABLE = 0x04;
+
+    static final int NEED_ALL = NEED_STAT | NEED_MIME | NEED_WRITABLE;
+
+    // Upper bound for the number of cached plans, projections are few in practice
+    private static final int MAX_CACHED_PLANS = 32;
+
+    private static final ConcurrentHashMap<Key, ColumnPlan> _plans = new ConcurrentHashMap<Key, ColumnPlan>();
+
+    private static final class Key
+    {
+        final String[] columns;
+        final int hash;
+
+        Key (String[] columns)
+        {
+            this.columns = columns;
+            this.hash = Arrays.hashCode(columns);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals (Object o)
+        {
+            return o instanceof Key && Arrays.equals(columns, ((Key) o).columns);
+        }
+    }
+
+    final String[] columns;
+    final int[] kinds;
+    final int needs;
+
+    private ColumnPlan (String[] columns)
+    {
+        this.columns = columns;
+        this.kinds = new int[columns.length];
+
+        int needs = 0;
+
+        for (int i = 0; i < columns.length; i++) {
+            kinds[i] = columnKind(columns[i]);
+
+            switch (kinds[i]) {
+                case COLUMN_SIZE:
+                case COLUMN_LAST_MODIFIED:
+                    needs |= NEED_STAT;
+                    break;
+                case COLUMN_MIME_TYPE:
+                    needs |= NEED_STAT | NEED_MIME;
+                    break;
+                case COLUMN_FLAGS:
+                    // Thumbnail flag depends on MIME type
+                    needs |= NEED_STAT | NEED_MIME | NEED_WRITABLE;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        this.needs = needs;
+    }
+
+    static ColumnPlan of (String[] columns)
+    {
+        Key key = new Key(columns);
+        ColumnPlan plan = _plans.get(key);
+
+        if (plan == null) {
+            if (_plans.size() >= MAX_CACHED_PLANS)
+                _plans.clear();
+
+            plan = new ColumnPlan(columns.clone());
+            _plans.put(new Key(plan.columns), plan);
+        }
+
+        return plan;
+    }
+
+    boolean needs (int attrs)
+    {
+        return (needs & attrs) != 0;
+    }
+
+    private static int columnKind (String column)
+    {
+        switch (column) {
+            case Document.COLUMN_DOCUMENT_ID: return COLUMN_DOCUMENT_ID;
+            case Document.COLUMN_DISPLAY_NAME: return COLUMN_DISPLAY_NAME;
+            case Document.COLUMN_SIZE: return COLUMN_SIZE;
+            case Document.COLUMN_MIME_TYPE: return COLUMN_MIME_TYPE;
+            case Document.COLUMN_LAST_MODIFIED: return COLUMN_LAST_MODIFIED;
+            case Document.COLUMN_FLAGS: return COLUMN_FLAGS;
+            case Document.COLUMN_ICON: return COLUMN_ICON;
+            default: return COLUMN_UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.os.ParcelFileDescriptor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+
+// Local copies of content of content URIs stored in a size-bounded disk cache.
+//
+// Copies are keyed by (URI, size, modification time) as reported by the
+// provider, so modified content never hits a stale copy. Concurrent requests
+// for the same key share a single copy. The least recently used copies are
+// deleted when the total size exceeds the limit. Content larger than the
+// limit is not cached.
+class ContentCache
+{
+    interface Source
+    {
+        ParcelFileDescriptor open () throws FileNotFoundException;
+    }
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final DiskLruFiles _files;
+
+    ContentCache (File dir, long maxBytes)
+    {
+        _files = new DiskLruFiles(dir, maxBytes);
+    }
+
+    /**
+     * Returns the local copy of the content, copying it from the source if necessary.
+     *
+     * @param info the URI, size and modification time of the content
+     * @throws FileNotFoundException if the content can not be copied or is too large
+     * @throws android.os.OperationCanceledException if the request was canceled
+     */
+    File get (final ContentInfo info, final Source source, final CancellationSignal signal)
+        throws FileNotFoundException
+    {
+        if (info.size > _files.maxBytes())
+            throw new FileNotFoundException("Content is larger than cache: " + info.uri);
+
+        String key = key(info);
+        File copy = _files.get(key);
+
+        if (copy != null)
+            return copy;
+
+        if (signal != null)
+            signal.throwIfCanceled();
+
+        try {
+            return _files.put(key, new DiskLruFiles.Writer() {
+                @Override
+                public void write (File temp) throws IOException
+                {
+                    store(info, source, signal, temp);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileNotFoundException("Interrupted while caching " + info.uri);
+        } catch (ExecutionException e) {
+            throw new FileNotFoundException(String.format("Failed to cache %s: %s"
+                , info.uri, e.getCause()));
+        }
+    }
+
+    void clear ()
+    {
+        _files.clear();
+    }
+
+    private static String key (ContentInfo info)
+    {
+        String text = info.uri + '\n' + info.size + '\n' + info.modTime;
+        return DiskLruFiles.hashKey(text);
+    }
+
+    private static void store (ContentInfo info, Source source, CancellationSignal signal, File temp)
+        throws IOException
+    {
+        long copied = 0;
+
+        // Streams work for pipes too: content may be streamed by the provider
+        InputStream in = new ParcelFileDescriptor.AutoCloseInputStream(source.open());
+
+        try {
+            FileOutputStream out = new FileOutputStream(temp);
+
+            try {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int n;
+
+                while ((n = in.read(buffer)) >= 0) {
+                    if (signal != null && signal.isCanceled())
+                        throw new OperationCanceledException();
+
+                    out.write(buffer, 0, n);
+                    copied += n;
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+
+        // Modified while copying, the copy does not match the key
+        if (copied != info.size) {
+            throw new IOException(String.format("Size mismatch: expected %d, copied %d"
+                , info.size, copied));
+        }
+    }
+}
@@ -0,0 +1,301 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.ParcelFileDescriptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Thread safe registry of open descriptors keyed by fd.
+//
+// Descriptors are spread over lock striped open addressing tables by the
+// low bits of fd (the kernel hands out the lowest free numbers, so those
+// are the most uniform), the rest of the bits index the slot. Registering
+// and removing a descriptor does not allocate: keys are plain ints and
+// deletion shifts the probe chain back instead of leaving tombstones.
+//
+// With tracking enabled, opening time, path and stack trace are recorded for
+// each descriptor, so leaked ones can be listed and force closed.
+class DescriptorRegistry
+{
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int EMPTY = -1; // Valid descriptors are non-negative
+
+    private final Stripe[] _stripes = new Stripe[STRIPES];
+    private volatile boolean _tracking = false;
+
+    private static final class Stripe
+    {
+        int[] keys;
+        ParcelFileDescriptor[] values;
+        OpenDescriptor[] records;
+        int size;
+
+        Stripe ()
+        {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void allocate (int capacity)
+        {
+            keys = new int[capacity];
+            values = new ParcelFileDescriptor[capacity];
+            records = new OpenDescriptor[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private int home (int fd)
+        {
+            return (fd >>> STRIPE_BITS) & (keys.length - 1);
+        }
+
+        // Slot of the key or ~slot of the first free slot of its probe chain
+        int indexOf (int fd)
+        {
+            int mask = keys.length - 1;
+            int i = home(fd);
+
+            while (keys[i] != EMPTY) {
+                if (keys[i] == fd)
+                    return i;
+
+                i = (i + 1) & mask;
+            }
+
+            return ~i;
+        }
+
+        ParcelFileDescriptor put (int fd, ParcelFileDescriptor pfd, OpenDescriptor record)
+        {
+            int i = indexOf(fd);
+
+            if (i >= 0) {
+                ParcelFileDescriptor previous = values[i];
+                values[i] = pfd;
+                records[i] = record;
+                return previous;
+            }
+
+            // Keep load factor below 1/2
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                i = indexOf(fd);
+            }
+
+            i = ~i;
+            keys[i] = fd;
+            values[i] = pfd;
+            records[i] = record;
+            size++;
+            return null;
+        }
+
+        ParcelFileDescriptor remove (int fd)
+        {
+            int i = indexOf(fd);
+
+            if (i < 0)
+                return null;
+
+            ParcelFileDescriptor pfd = values[i];
+            deleteAt(i);
+            return pfd;
+        }
+
+        // Backward shift deletion: moves entries of the probe chain into the hole unless
+        // their home slot lies cyclically in (hole, current]
+        private void deleteAt (int hole)
+        {
+            int mask = keys.length - 1;
+            int j = hole;
+
+            while (true) {
+                j = (j + 1) & mask;
+
+                if (keys[j] == EMPTY)
+                    break;
+
+                int home = home(keys[j]);
+                boolean reachable = hole <= j
+                    ? (home > hole && home <= j)
+                    : (home > hole || home <= j);
+
+                if (!reachable) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    records[hole] = records[j];
+                    hole = j;
+                }
+            }
+
+            keys[hole] = EMPTY;
+            values[hole] = null;
+            records[hole] = null;
+            size--;
+        }
+
+        private void grow ()
+        {
+            int[] oldKeys = keys;
+            ParcelFileDescriptor[] oldValues = values;
+            OpenDescriptor[] oldRecords = records;
+
+            allocate(oldKeys.length * 2);
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int j = ~indexOf(oldKeys[i]);
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                    records[j] = oldRecords[i];
+                }
+            }
+        }
+    }
+
+    DescriptorRegistry ()
+    {
+        for (int i = 0; i < STRIPES; i++)
+            _stripes[i] = new Stripe();
+    }
+
+    private Stripe stripe (int fd)
+    {
+        return _stripes[fd & (STRIPES - 1)];
+    }
+
+    void setTracking (boolean enable)
+    {
+        _tracking = enable;
+    }
+
+    boolean isTracking ()
+    {
+        return _tracking;
+    }
+
+    /**
+     * @return the descriptor previously registered with the same fd or null
+     */
+    ParcelFileDescriptor put (int fd, ParcelFileDescriptor pfd, String path)
+    {
+        if (fd < 0)
+            throw new IllegalArgumentException("Bad descriptor: " + fd);
+
+        OpenDescriptor record = null;
+
+        if (_tracking) {
+            record = new OpenDescriptor();
+            record.fd = fd;
+            record.path = path;
+            record.openedAt = System.currentTimeMillis();
+            record.openedBy = new Throwable("Descriptor opened");
+        }
+
+        Stripe stripe = stripe(fd);
+
+        synchronized (stripe) {
+            return stripe.put(fd, pfd, record);
+        }
+    }
+
+    ParcelFileDescriptor get (int fd)
+    {
+        if (fd < 0)
+            return null;
+
+        Stripe stripe = stripe(fd);
+
+        synchronized (stripe) {
+            int i = stripe.indexOf(fd);
+            return i >= 0 ? stripe.values[i] : null;
+        }
+    }
+
+    /**
+     * @return the removed descriptor or null if fd is not registered (e.g. already removed
+     *         by a concurrent call)
+     */
+    ParcelFileDescriptor remove (int fd)
+    {
+        if (fd < 0)
+            return null;
+
+        Stripe stripe = stripe(fd);
+
+        synchronized (stripe) {
+            return stripe.remove(fd);
+        }
+    }
+
+    /**
+     * Removes the descriptor listed by snapshot() unless fd has been closed and reused since.
+     *
+     * @return the removed descriptor or null
+     */
+    ParcelFileDescriptor remove (OpenDescriptor listed)
+    {
+        Stripe stripe = stripe(listed.fd);
+
+        synchronized (stripe) {
+            int i = stripe.indexOf(listed.fd);
+
+            // Untracked descriptors can not be told apart, they are listed with a new record
+            if (i < 0 || (stripe.records[i] != null && stripe.records[i] != listed))
+                return null;
+
+            return stripe.remove(listed.fd);
+        }
+    }
+
+    int size ()
+    {
+        int size = 0;
+
+        for (Stripe stripe : _stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * @return registered descriptors, those registered with tracking disabled have only fd set
+     */
+    List<OpenDescriptor> snapshot ()
+    {
+        ArrayList<OpenDescriptor> result = new ArrayList<OpenDescriptor>();
+
+        for (Stripe stripe : _stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.keys.length; i++) {
+                    if (stripe.keys[i] == EMPTY)
+                        continue;
+
+                    OpenDescriptor record = stripe.records[i];
+
+                    if (record == null) {
+                        record = new OpenDescriptor();
+                        record.fd = stripe.keys[i];
+                    }
+
+                    result.add(record);
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.database.AbstractWindowedCursor;
+import android.database.CursorWindow;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+// Cursor over children of a huge directory that builds rows on demand.
+//
+// Only the names are collected up front by iterating a DirectoryStream (no
+// stat calls). Rows, which need stat calls and MIME resolution, are built
+// only for the window the client actually reads, so time to first row and
+// heap usage do not depend on the cost of building rows for the whole
+// directory.
+class DirectoryCursor extends AbstractWindowedCursor
+{
+    // Rows built per window fill
+    private static final int ROWS_PER_WINDOW = 256;
+
+    private final ColumnPlan _plan;
+    private final File _dir;
+    private final String[] _names;
+    private final DirectoryListingCache.RowFactory _rowFactory;
+
+    DirectoryCursor (ColumnPlan plan, File dir, String[] names
+        , DirectoryListingCache.RowFactory rowFactory)
+    {
+        _plan = plan;
+        _dir = dir;
+        _names = names;
+        _rowFactory = rowFactory;
+    }
+
+    // Returns null if the directory can not be listed.
+    static String[] listNames (File dir)
+    {
+        ArrayList<String> names = new ArrayList<String>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+            for (Path path : stream)
+                names.add(path.getFileName().toString());
+        } catch (IOException e) {
+            return null;
+        }
+
+        return names.toArray(new String[0]);
+    }
+
+    @Override
+    public int getCount ()
+    {
+        return _names.length;
+    }
+
+    @Override
+    public String[] getColumnNames ()
+    {
+        return _plan.columns;
+    }
+
+    @Override
+    public boolean onMove (int oldPosition, int newPosition)
+    {
+        if (mWindow == null
+                || newPosition < mWindow.getStartPosition()
+                || newPosition >= mWindow.getStartPosition() + mWindow.getNumRows()) {
+
+            if (mWindow == null)
+                setWindow(new CursorWindow(_dir.getName()));
+
+            fillWindow(newPosition, mWindow);
+        }
+
+        return true;
+    }
+
+    // Also called directly by the cross-process cursor adaptor with its own window
+    @Override
+    public void fillWindow (int position, CursorWindow window)
+    {
+        if (position < 0 || position >= _names.length)
+            return;
+
+        // Keep some rows before the requested position for backward scrolling
+        int start = Math.max(0, position - ROWS_PER_WINDOW / 3);
+        int end = Math.min(_names.length, start + ROWS_PER_WINDOW);
+
+        window.acquireReference();
+
+        try {
+            window.clear();
+            window.setStartPosition(start);
+            window.setNumColumns(_plan.columns.length);
+
+            for (int pos = start; pos < end; pos++) {
+                if (!window.allocRow())
+                    break;
+
+                DocumentRow row = _rowFactory.makeRow(new File(_dir, _names[pos]), _plan.needs);
+
+                if (!putRow(window, row, pos)) {
+                    // Window is full
+                    window.freeLastRow();
+                    break;
+                }
+            }
+        } finally {
+            window.releaseReference();
+        }
+    }
+
+    private boolean putRow (CursorWindow window, DocumentRow row, int pos)
+    {
+        for (int col = 0; col < _plan.columns.length; col++) {
+            boolean ok;
+
+            switch (_plan.kinds[col]) {
+                case ColumnPlan.COLUMN_DOCUMENT_ID:
+                    ok = window.putString(row.docId, pos, col);
+                    break;
+                case ColumnPlan.COLUMN_DISPLAY_NAME:
+                    ok = window.putString(row.displayName, pos, col);
+                    break;
+                case ColumnPlan.COLUMN_SIZE:
+                    ok = window.putLong(row.size, pos, col);
+                    break;
+                case ColumnPlan.COLUMN_MIME_TYPE:
+                    ok = window.putString(row.mimeType, pos, col);
+                    break;
+                case ColumnPlan.COLUMN_LAST_MODIFIED:
+                    ok = window.putLong(row.lastModified, pos, col);
+                    break;
+                case ColumnPlan.COLUMN_FLAGS:
+                    ok = window.putLong(row.flags, pos, col);
+                    break;
+                case ColumnPlan.COLUMN_ICON:
+                    ok = row.iconId != 0 ? window.putLong(row.iconId, pos, col) : window.putNull(pos, col);
+                    break;
+                default:
+                    ok = window.putNull(pos, col);
+                    break;
+            }
+
+            if (!ok)
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,291 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.Handler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import pfs.android.Say;
+
+// Bounded cache of fully built child document rows per directory.
+//
+// Each cached directory is watched through the shared DirectoryWatcher. A
+// change of a single entry re-stats only that entry (on the handler thread,
+// not on the FileObserver thread shared by the process), a change of the
+// directory itself drops the whole listing. Listings are evicted in LRU order
+// when the total number of cached rows or the number of listings (i.e. of
+// watched directories, empty ones included) exceeds its limit.
+//
+// Usage:
+//      Listing listing = cache.prepare(dir, attrs); // start watching before listing
+//      ... list directory and build rows ...
+//      cache.commit(listing, rows, names);          // discarded if changed meanwhile
+class DirectoryListingCache
+{
+    interface RowFactory
+    {
+        // Builds a row with at least the given attributes (ColumnPlan.NEED_*).
+        // Returns null if the row can not be built (e.g. file already removed).
+        DocumentRow makeRow (File file, int attrs);
+    }
+
+    class Listing implements DirectoryWatcher.Callback
+    {
+        private final File _dir;
+        private DirectoryWatcher.Subscription _subscription;
+
+        // Rows by file name, in the order they were listed. Guarded by the cache.
+        private LinkedHashMap<String, DocumentRow> _rows;
+
+        // Attributes the rows were built with
+        private final int _attrs;
+
+        // Set if the directory changed before the listing was committed
+        private boolean _dirty = false;
+        private boolean _cached = false;
+
+        private Listing (File dir, int attrs)
+        {
+            _dir = dir;
+            _attrs = attrs;
+        }
+
+        // Called on the FileObserver thread
+        @Override
+        public void onEvent (final int event, final String name)
+        {
+            final Listing listing = this;
+
+            _handler.post(new Runnable() {
+                @Override
+                public void run ()
+                {
+                    if ((event & DirectoryWatcher.SELF_MASK) != 0 || name == null) {
+                        drop(listing);
+                    } else {
+                        refreshEntry(listing, name);
+                    }
+                }
+            });
+        }
+
+        private void stopWatching ()
+        {
+            _subscription.cancel();
+        }
+    }
+
+    private final DirectoryWatcher _watcher;
+    private final Handler _handler;
+    private final int _maxRows;
+    private final int _maxListings;
+    private final RowFactory _rowFactory;
+    private int _totalRows = 0;
+
+    // Access ordered, eldest entry is the least recently used listing
+    private final LinkedHashMap<String, Listing> _listings
+        = new LinkedHashMap<String, Listing>(16, 0.75f, true);
+
+    /**
+     * @param handler     the handler of the thread entries are refreshed on
+     * @param maxRows     the limit of total number of cached rows, 0 disables the cache
+     * @param maxListings the limit of number of cached listings
+     */
+    DirectoryListingCache (DirectoryWatcher watcher, Handler handler, int maxRows, int maxListings
+        , RowFactory rowFactory)
+    {
+        _watcher = watcher;
+        _handler = handler;
+        _maxRows = maxRows;
+        _maxListings = maxListings;
+        _rowFactory = rowFactory;
+    }
+
+    boolean isEnabled ()
+    {
+        return _maxRows > 0 && _maxListings > 0;
+    }
+
+    // Returns a snapshot of cached rows or null if directory is not cached
+    // with (at least) the required attributes.
+    synchronized List<DocumentRow> get (File dir, int attrs)
+    {
+        Listing listing = _listings.get(dir.getPath());
+
+        if (listing == null || (listing._attrs & attrs) != attrs)
+            return null;
+
+        return new ArrayList<DocumentRow>(listing._rows.values());
+    }
+
+    // Starts watching the directory. Must be called before the directory is listed.
+    // A committed listing replaces any listing of the same directory: they share the
+    // watch, so the replaced one stops watching without affecting the new one.
+    Listing prepare (File dir, int attrs)
+    {
+        Listing listing = new Listing(dir, attrs);
+        listing._subscription = _watcher.subscribe(dir, listing);
+        return listing;
+    }
+
+    // Publishes rows listed after prepare(). The i-th row must describe the i-th name.
+    void commit (Listing listing, List<DocumentRow> rows, String[] names)
+    {
+        if (rows.size() > _maxRows) {
+            listing.stopWatching();
+            return;
+        }
+
+        LinkedHashMap<String, DocumentRow> map = new LinkedHashMap<String, DocumentRow>(rows.size() * 2);
+
+        for (int i = 0; i < rows.size(); i++)
+            map.put(names[i], rows.get(i));
+
+        List<Listing> evicted = new ArrayList<Listing>();
+
+        synchronized (this) {
+            if (listing._dirty) {
+                evicted.add(listing);
+            } else {
+                listing._rows = map;
+                listing._cached = true;
+
+                Listing prev = _listings.put(listing._dir.getPath(), listing);
+
+                if (prev != null) {
+                    prev._cached = false;
+                    _totalRows -= prev._rows.size();
+                    evicted.add(prev);
+                }
+
+                _totalRows += map.size();
+
+                Iterator<Map.Entry<String, Listing>> it = _listings.entrySet().iterator();
+
+                while ((_totalRows > _maxRows || _listings.size() > _maxListings) && it.hasNext()) {
+                    Listing eldest = it.next().getValue();
+
+                    if (eldest == listing)
+                        continue;
+
+                    it.remove();
+                    eldest._cached = false;
+                    _totalRows -= eldest._rows.size();
+                    evicted.add(eldest);
+                }
+            }
+        }
+
+        for (Listing l : evicted)
+            l.stopWatching();
+    }
+
+    // Cancels listing obtained by prepare() if it is not going to be committed.
+    void abandon (Listing listing)
+    {
+        listing.stopWatching();
+    }
+
+    void invalidate (File dir)
+    {
+        Listing listing;
+
+        synchronized (this) {
+            listing = _listings.get(dir.getPath());
+        }
+
+        if (listing != null)
+            drop(listing);
+    }
+
+    // Drops listings of the directory and of all directories under it
+    void invalidateTree (File dir)
+    {
+        String prefix = dir.getPath() + File.separator;
+        List<Listing> stale = new ArrayList<Listing>();
+
+        synchronized (this) {
+            for (Map.Entry<String, Listing> e : _listings.entrySet()) {
+                if (e.getKey().equals(dir.getPath()) || e.getKey().startsWith(prefix))
+                    stale.add(e.getValue());
+            }
+        }
+
+        for (Listing listing : stale)
+            drop(listing);
+    }
+
+    void clear ()
+    {
+        List<Listing> evicted;
+
+        synchronized (this) {
+            evicted = new ArrayList<Listing>(_listings.values());
+
+            for (Listing listing : evicted)
+                listing._cached = false;
+
+            _listings.clear();
+            _totalRows = 0;
+        }
+
+        for (Listing listing : evicted)
+            listing.stopWatching();
+    }
+
+    private void drop (Listing listing)
+    {
+        synchronized (this) {
+            if (!listing._cached) {
+                listing._dirty = true;
+                return;
+            }
+
+            listing._cached = false;
+            _listings.remove(listing._dir.getPath());
+            _totalRows -= listing._rows.size();
+        }
+
+        listing.stopWatching();
+        Say.t(3, "DirectoryListingCache: invalidated: " + listing._dir);
+    }
+
+    private void refreshEntry (Listing listing, String name)
+    {
+        synchronized (this) {
+            if (!listing._cached) {
+                listing._dirty = true;
+                return;
+            }
+        }
+
+        // Stat outside the lock, the row factory performs file system calls
+        DocumentRow row = _rowFactory.makeRow(new File(listing._dir, name), listing._attrs);
+
+        synchronized (this) {
+            if (!listing._cached)
+                return;
+
+            DocumentRow prev = row != null
+                ? listing._rows.put(name, row)
+                : listing._rows.remove(name);
+
+            if (prev == null && row != null)
+                _totalRows++;
+            else if (prev != null && row == null)
+                _totalRows--;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.FileObserver;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Shared FileObservers of directories.
+//
+// All FileObservers of a process share one inotify descriptor and are keyed
+// by watch descriptor. Two observers of the same path get the same watch
+// descriptor: only the last one started receives events and stopping either
+// of them removes the kernel watch of both. So every directory has a single
+// observer here, its events are forwarded to all subscriptions and the watch
+// is removed when the last subscription is canceled.
+//
+// Callbacks are called on the FileObserver thread shared by the whole
+// process, they must not block: post the work to an own thread.
+class DirectoryWatcher
+{
+    static final int EVENT_MASK = FileObserver.CREATE
+        | FileObserver.DELETE
+        | FileObserver.MOVED_FROM
+        | FileObserver.MOVED_TO
+        | FileObserver.CLOSE_WRITE
+        | FileObserver.ATTRIB
+        | FileObserver.DELETE_SELF
+        | FileObserver.MOVE_SELF;
+
+    static final int SELF_MASK = FileObserver.DELETE_SELF | FileObserver.MOVE_SELF;
+
+    interface Callback
+    {
+        // `event` is masked by EVENT_MASK, `name` is null for events of the directory itself
+        void onEvent (int event, String name);
+    }
+
+    final class Subscription
+    {
+        private final Observer _observer;
+        private final Callback _callback;
+        private boolean _canceled = false;
+
+        private Subscription (Observer observer, Callback callback)
+        {
+            _observer = observer;
+            _callback = callback;
+        }
+
+        void cancel ()
+        {
+            unsubscribe(this);
+        }
+    }
+
+    private final class Observer extends FileObserver
+    {
+        private final String _path;
+        private final CopyOnWriteArrayList<Subscription> _subscriptions
+            = new CopyOnWriteArrayList<Subscription>();
+
+        @SuppressWarnings("deprecation")
+        Observer (String path)
+        {
+            // FileObserver(File, int) requires API 29
+            super(path, EVENT_MASK);
+            _path = path;
+        }
+
+        @Override
+        public void onEvent (int event, String name)
+        {
+            event &= EVENT_MASK;
+
+            if (event == 0)
+                return;
+
+            // The watch now belongs to a removed or moved directory, a directory created
+            // at the path later needs a new one
+            if ((event & SELF_MASK) != 0)
+                forget(this);
+
+            for (Subscription subscription : _subscriptions)
+                subscription._callback.onEvent(event, (event & SELF_MASK) != 0 ? null : name);
+        }
+    }
+
+    // Path -> observer, the map keeps observers reachable: FileObserver references them weakly
+    private final HashMap<String, Observer> _observers = new HashMap<String, Observer>();
+
+    // Starts watching the directory if it is not watched yet
+    synchronized Subscription subscribe (File dir, Callback callback)
+    {
+        String path = dir.getPath();
+        Observer observer = _observers.get(path);
+        boolean start = observer == null;
+
+        if (start) {
+            observer = new Observer(path);
+            _observers.put(path, observer);
+        }
+
+        Subscription subscription = new Subscription(observer, callback);
+        observer._subscriptions.add(subscription);
+
+        if (start)
+            observer.startWatching();
+
+        return subscription;
+    }
+
+    synchronized int watchedCount ()
+    {
+        return _observers.size();
+    }
+
+    private synchronized void unsubscribe (Subscription subscription)
+    {
+        if (subscription._canceled)
+            return;
+
+        subscription._canceled = true;
+
+        Observer observer = subscription._observer;
+        observer._subscriptions.remove(subscription);
+
+        if (observer._subscriptions.isEmpty()) {
+            if (_observers.get(observer._path) == observer)
+                _observers.remove(observer._path);
+
+            observer.stopWatching();
+        }
+    }
+
+    private synchronized void forget (Observer observer)
+    {
+        if (_observers.get(observer._path) == observer)
+            _observers.remove(observer._path);
+    }
+}
@@ -0,0 +1,219 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import pfs.android.Say;
+
+// Files in a directory bounded by total size, evicted least recently used
+// first. Backs the thumbnail and content caches.
+//
+// A file is written to a temporary file and renamed to its key when
+// complete, so a file under its key is always whole. Concurrent writers of
+// the same key share a single write. The LRU order is approximated by file
+// modification times after restart, leftovers of interrupted writes are
+// deleted.
+class DiskLruFiles
+{
+    interface Writer
+    {
+        // Writes the content to `temp`, which is deleted if this throws
+        void write (File temp) throws Exception;
+    }
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File _dir;
+    private final long _maxBytes;
+
+    // Access ordered key -> file size, guarded by `this`
+    private LinkedHashMap<String, Long> _entries = null;
+    private long _totalBytes = 0;
+
+    private final ConcurrentHashMap<String, FutureTask<File>> _inflight
+        = new ConcurrentHashMap<String, FutureTask<File>>();
+
+    DiskLruFiles (File dir, long maxBytes)
+    {
+        _dir = dir;
+        _maxBytes = maxBytes;
+    }
+
+    // File name for a key text: hex SHA-1 of the text
+    static String hashKey (String text)
+    {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest)
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    long maxBytes ()
+    {
+        return _maxBytes;
+    }
+
+    // Returns the file of the key if it is cached, null otherwise
+    synchronized File get (String key)
+    {
+        loadEntries();
+
+        // The access order of the map is updated by get()
+        return _entries.get(key) != null ? new File(_dir, key) : null;
+    }
+
+    /**
+     * Writes the file of the key, or waits for the write already started by another thread.
+     *
+     * @throws ExecutionException if the write failed, the cause is thrown by the writer
+     * @throws InterruptedException if interrupted while waiting for another thread
+     */
+    File put (final String key, final Writer writer) throws ExecutionException, InterruptedException
+    {
+        FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+            @Override
+            public File call () throws Exception
+            {
+                return write(key, writer);
+            }
+        });
+
+        FutureTask<File> running = _inflight.putIfAbsent(key, task);
+
+        if (running == null) {
+            running = task;
+
+            try {
+                task.run();
+            } finally {
+                _inflight.remove(key, task);
+            }
+        }
+
+        return running.get();
+    }
+
+    synchronized void clear ()
+    {
+        loadEntries();
+
+        for (String key : _entries.keySet())
+            new File(_dir, key).delete();
+
+        _entries.clear();
+        _totalBytes = 0;
+    }
+
+    private void loadEntries ()
+    {
+        if (_entries != null)
+            return;
+
+        _entries = new LinkedHashMap<String, Long>(64, 0.75f, true);
+
+        if (!_dir.isDirectory() && !_dir.mkdirs()) {
+            Say.w("DiskLruFiles: unable to create directory: " + _dir);
+            return;
+        }
+
+        File[] files = _dir.listFiles();
+
+        if (files == null)
+            return;
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare (File a, File b)
+            {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+
+        for (File file : files) {
+            // Leftover of an interrupted write
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete();
+                continue;
+            }
+
+            _entries.put(file.getName(), file.length());
+            _totalBytes += file.length();
+        }
+    }
+
+    private File write (String key, Writer writer) throws Exception
+    {
+        File file = new File(_dir, key);
+        File temp = new File(_dir, key + TEMP_SUFFIX);
+
+        synchronized (this) {
+            loadEntries();
+        }
+
+        try {
+            writer.write(temp);
+        } catch (Exception e) {
+            temp.delete();
+            throw e;
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Unable to store file: " + file);
+        }
+
+        add(key, file.length());
+        return file;
+    }
+
+    private synchronized void add (String key, long size)
+    {
+        Long prev = _entries.put(key, size);
+
+        if (prev != null)
+            _totalBytes -= prev;
+
+        _totalBytes += size;
+
+        Iterator<Map.Entry<String, Long>> it = _entries.entrySet().iterator();
+
+        while (_totalBytes > _maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+
+            if (eldest.getKey().equals(key))
+                continue;
+
+            // Readers of an open file are not affected
+            new File(_dir, eldest.getKey()).delete();
+            _totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+}
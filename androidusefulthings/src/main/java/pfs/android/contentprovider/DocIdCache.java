@@ -0,0 +1,174 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.SystemClock;
+
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU of document identifiers resolved to files.
+//
+// Positive entries hold the attributes obtained by the existence check, so a
+// following row build needs no extra stat. Negative entries (missing
+// documents) live for a short time only. Both are dropped as soon as a change
+// of the file is reported by DocumentTree; positive entries also expire after
+// a longer period as a safety net for files outside of watched directories.
+class DocIdCache implements DocumentTree.Listener
+{
+    static final class Resolved
+    {
+        final String docId;
+        final File file;
+
+        // Null for a missing document
+        final BasicFileAttributes attrs;
+        final long expiresAt;
+
+        Resolved (String docId, File file, BasicFileAttributes attrs, long expiresAt)
+        {
+            this.docId = docId;
+            this.file = file;
+            this.attrs = attrs;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean exists ()
+        {
+            return attrs != null;
+        }
+    }
+
+    private static final long POSITIVE_TTL_MILLIS = 60000;
+    private static final long NEGATIVE_TTL_MILLIS = 2000;
+
+    private final int _maxEntries;
+
+    // Access ordered docId -> resolved entry, guarded by `this`
+    private final LinkedHashMap<String, Resolved> _entries;
+
+    // File path -> docId, for invalidation by file change events
+    private final HashMap<String, String> _docIdsByPath = new HashMap<String, String>();
+
+    DocIdCache (final int maxEntries)
+    {
+        _maxEntries = maxEntries;
+        _entries = new LinkedHashMap<String, Resolved>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<String, Resolved> eldest)
+            {
+                if (size() <= _maxEntries)
+                    return false;
+
+                _docIdsByPath.remove(eldest.getValue().file.getPath());
+                return true;
+            }
+        };
+    }
+
+    // Returns null if the docId is not cached or the entry has expired.
+    synchronized Resolved get (String docId)
+    {
+        Resolved resolved = _entries.get(docId);
+
+        if (resolved == null)
+            return null;
+
+        if (SystemClock.elapsedRealtime() >= resolved.expiresAt) {
+            remove(docId);
+            return null;
+        }
+
+        return resolved;
+    }
+
+    Resolved put (String docId, File file, BasicFileAttributes attrs)
+    {
+        long ttl = attrs != null ? POSITIVE_TTL_MILLIS : NEGATIVE_TTL_MILLIS;
+        Resolved resolved = new Resolved(docId, file, attrs, SystemClock.elapsedRealtime() + ttl);
+
+        if (_maxEntries <= 0)
+            return resolved;
+
+        synchronized (this) {
+            Resolved prev = _entries.put(docId, resolved);
+
+            if (prev != null)
+                _docIdsByPath.remove(prev.file.getPath());
+
+            _docIdsByPath.put(file.getPath(), docId);
+        }
+
+        return resolved;
+    }
+
+    synchronized void invalidate (File file)
+    {
+        if (_entries.isEmpty())
+            return;
+
+        String docId = _docIdsByPath.get(file.getPath());
+
+        if (docId != null)
+            remove(docId);
+    }
+
+    // Drops the file and everything under it, for renamed, moved or deleted directories
+    synchronized void invalidateTree (File dir)
+    {
+        if (_entries.isEmpty())
+            return;
+
+        String prefix = dir.getPath() + File.separator;
+        ArrayList<String> docIds = new ArrayList<String>();
+
+        for (Resolved resolved : _entries.values()) {
+            String path = resolved.file.getPath();
+
+            if (path.equals(dir.getPath()) || path.startsWith(prefix))
+                docIds.add(resolved.docId);
+        }
+
+        for (String docId : docIds)
+            remove(docId);
+    }
+
+    synchronized void clear ()
+    {
+        _entries.clear();
+        _docIdsByPath.clear();
+    }
+
+    private void remove (String docId)
+    {
+        Resolved resolved = _entries.remove(docId);
+
+        if (resolved != null)
+            _docIdsByPath.remove(resolved.file.getPath());
+    }
+
+    @Override
+    public void onEntryAdded (DocumentTree.Entry entry)
+    {
+        invalidate(entry.file);
+    }
+
+    @Override
+    public void onEntryRemoved (DocumentTree.Entry entry)
+    {
+        invalidate(entry.file);
+    }
+
+    @Override
+    public void onSeedFinished () {}
+}
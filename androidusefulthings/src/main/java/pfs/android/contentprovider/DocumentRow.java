@@ -0,0 +1,52 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.database.MatrixCursor;
+
+// Document row as it is returned to the system picker UI. Only attributes
+// listed in `attrs` (see ColumnPlan.NEED_*) are valid.
+class DocumentRow
+{
+    String docId;
+    String displayName;
+    long size;
+    String mimeType;
+    long lastModified;
+    int flags;
+
+    // Zero means no custom icon
+    int iconId;
+
+    int attrs = ColumnPlan.NEED_ALL;
+
+    void addTo (MatrixCursor result, ColumnPlan plan)
+    {
+        final Object[] values = new Object[plan.kinds.length];
+
+        for (int i = 0; i < values.length; i++)
+            values[i] = value(plan.kinds[i]);
+
+        result.addRow(values);
+    }
+
+    Object value (int kind)
+    {
+        switch (kind) {
+            case ColumnPlan.COLUMN_DOCUMENT_ID: return docId;
+            case ColumnPlan.COLUMN_DISPLAY_NAME: return displayName;
+            case ColumnPlan.COLUMN_SIZE: return size;
+            case ColumnPlan.COLUMN_MIME_TYPE: return mimeType;
+            case ColumnPlan.COLUMN_LAST_MODIFIED: return lastModified;
+            case ColumnPlan.COLUMN_FLAGS: return flags;
+            case ColumnPlan.COLUMN_ICON: return iconId != 0 ? iconId : null;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.FileObserver;
+import android.provider.DocumentsContract.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import pfs.android.Say;
+
+// In-memory model of all files under the top directories.
+//
+// The model is seeded by a single background walk and then kept up to date
+// by watches of every directory of the tree (shared with other watchers of
+// the same directories through DirectoryWatcher). Watches are a per-user
+// kernel resource shared with the listing cache and the rest of the
+// system, so their number is bounded: directories beyond the budget are
+// rescanned periodically instead, if their modification time changed (files
+// modified in place there are not seen until their directory changes). All
+// mutations and
+// listener notifications happen on the dedicated worker thread, so listeners
+// need to synchronize only with their own readers.
+//
+// Changed files are reported as removal of the old entry followed by addition
+// of the new one.
+class DocumentTree
+{
+    static class TopDir
+    {
+        final File folder;
+        final boolean recursive;
+
+        TopDir (File folder, boolean recursive)
+        {
+            this.folder = folder;
+            this.recursive = recursive;
+        }
+    }
+
+    static class Entry
+    {
+        // Unique among live entries, reused after removal
+        final int id;
+        final File file;
+        final String name;
+        final TopDir topDir;
+        final boolean isDirectory;
+        final long size;
+        final long lastModified;
+
+        // Document.MIME_TYPE_DIR for directories
+        final String mimeType;
+
+        Entry (int id, File file, TopDir topDir, BasicFileAttributes attrs, MimeResolver mimeResolver)
+        {
+            this.id = id;
+            this.file = file;
+            this.name = file.getName();
+            this.topDir = topDir;
+            this.isDirectory = attrs.isDirectory();
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime().toMillis();
+            this.mimeType = isDirectory
+                ? Document.MIME_TYPE_DIR
+                : mimeResolver.typeForFile(file, lastModified);
+        }
+    }
+
+    interface Listener
+    {
+        void onEntryAdded (Entry entry);
+        void onEntryRemoved (Entry entry);
+
+        // Initial walk is complete, called once
+        void onSeedFinished ();
+    }
+
+    interface Visitor
+    {
+        void visit (Entry entry);
+    }
+
+    private static final int REMOVE_MASK = FileObserver.DELETE | FileObserver.MOVED_FROM;
+
+    // Directory beyond the watch budget
+    private static class Unwatched
+    {
+        final TopDir topDir;
+        long lastModified;
+
+        Unwatched (TopDir topDir, long lastModified)
+        {
+            this.topDir = topDir;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private class DirObserver implements DirectoryWatcher.Callback
+    {
+        private final File _dir;
+        private final TopDir _topDir;
+        private DirectoryWatcher.Subscription _subscription;
+
+        DirObserver (File dir, TopDir topDir)
+        {
+            _dir = dir;
+            _topDir = topDir;
+        }
+
+        @Override
+        public void onEvent (final int event, final String path)
+        {
+            // Removal of the directory itself is handled by the event of its parent
+            if (path == null || _worker.isShutdown())
+                return;
+
+            _worker.execute(new Runnable() {
+                @Override
+                public void run ()
+                {
+                    File file = new File(_dir, path);
+
+                    if ((event & REMOVE_MASK) != 0)
+                        remove(file);
+                    else
+                        update(file, _topDir);
+                }
+            });
+        }
+    }
+
+    private final List<TopDir> _topDirs;
+    private final MimeResolver _mimeResolver;
+    private final DirectoryWatcher _watcher;
+    private final int _maxWatches;
+    private final long _rescanInterval;
+    private final CopyOnWriteArrayList<Listener> _listeners = new CopyOnWriteArrayList<Listener>();
+
+    // Confined to the worker thread
+    private final HashMap<String, Entry> _entries = new HashMap<String, Entry>();
+    private final HashMap<String, DirObserver> _observers = new HashMap<String, DirObserver>();
+    private final HashMap<String, Unwatched> _unwatched = new HashMap<String, Unwatched>();
+    private boolean _rescanScheduled = false;
+    private int[] _freeIds = new int[16];
+    private int _freeIdCount = 0;
+    private int _nextId = 0;
+
+    private volatile boolean _seeded = false;
+
+    private final ScheduledThreadPoolExecutor _worker = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread (Runnable r)
+        {
+            Thread t = new Thread(r, "DocumentTree");
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+
+    private final Runnable _rescanTask = new Runnable() {
+        @Override
+        public void run ()
+        {
+            rescan();
+        }
+    };
+
+    /**
+     * @param maxWatches     maximum number of watched directories
+     * @param rescanInterval interval of rescans of directories beyond the budget in
+     *                       milliseconds
+     */
+    DocumentTree (List<TopDir> topDirs, MimeResolver mimeResolver, DirectoryWatcher watcher
+        , int maxWatches, long rescanInterval)
+    {
+        _topDirs = topDirs;
+        _mimeResolver = mimeResolver;
+        _watcher = watcher;
+        _maxWatches = maxWatches;
+        _rescanInterval = rescanInterval;
+    }
+
+    // Listeners must be added before start().
+    void addListener (Listener listener)
+    {
+        _listeners.add(listener);
+    }
+
+    boolean isSeeded ()
+    {
+        return _seeded;
+    }
+
+    // Must be called on the worker thread, i.e. from a listener callback.
+    void forEachEntry (Visitor visitor)
+    {
+        for (Entry entry : _entries.values())
+            visitor.visit(entry);
+    }
+
+    void start ()
+    {
+        _worker.execute(new Runnable() {
+            @Override
+            public void run ()
+            {
+                long startTime = System.currentTimeMillis();
+
+                for (TopDir topDir : _topDirs)
+                    walk(topDir.folder, topDir);
+
+                _seeded = true;
+
+                for (Listener l : _listeners)
+                    l.onSeedFinished();
+
+                Say.t(1, String.format("DocumentTree: seeded: %d entries, %d watched directories"
+                    + ", %d rescanned directories, %d ms", _entries.size(), _observers.size()
+                    , _unwatched.size(), System.currentTimeMillis() - startTime));
+            }
+        });
+    }
+
+    void shutdown ()
+    {
+        _worker.shutdownNow();
+
+        synchronized (this) {
+            for (DirObserver observer : _observers.values())
+                observer._subscription.cancel();
+
+            _observers.clear();
+        }
+    }
+
+    private int allocateId ()
+    {
+        return _freeIdCount > 0 ? _freeIds[--_freeIdCount] : _nextId++;
+    }
+
+    private void releaseId (int id)
+    {
+        if (_freeIdCount == _freeIds.length) {
+            int[] ids = new int[_freeIds.length * 2];
+            System.arraycopy(_freeIds, 0, ids, 0, _freeIdCount);
+            _freeIds = ids;
+        }
+
+        _freeIds[_freeIdCount++] = id;
+    }
+
+    private void watch (File dir, TopDir topDir)
+    {
+        String key = dir.getPath();
+
+        if (_observers.containsKey(key) || _unwatched.containsKey(key))
+            return;
+
+        if (_observers.size() >= _maxWatches) {
+            // Taken before listing, like the watch
+            _unwatched.put(key, new Unwatched(topDir, dir.lastModified()));
+
+            if (!_rescanScheduled) {
+                Say.w(String.format("DocumentTree: watch budget of %d directories exhausted, other"
+                    + " directories are rescanned every %d s", _maxWatches, _rescanInterval / 1000));
+                _worker.scheduleWithFixedDelay(_rescanTask, _rescanInterval, _rescanInterval
+                    , TimeUnit.MILLISECONDS);
+                _rescanScheduled = true;
+            }
+
+            return;
+        }
+
+        DirObserver observer = new DirObserver(dir, topDir);
+
+        synchronized (this) {
+            observer._subscription = _watcher.subscribe(dir, observer);
+            _observers.put(key, observer);
+        }
+    }
+
+    private void unwatch (String key)
+    {
+        DirObserver observer;
+
+        _unwatched.remove(key);
+
+        synchronized (this) {
+            observer = _observers.remove(key);
+        }
+
+        if (observer != null)
+            observer._subscription.cancel();
+    }
+
+    // Applies changes of unwatched directories whose modification time changed
+    private void rescan ()
+    {
+        // Directory path -> names listed now
+        HashMap<String, HashSet<String>> listed = new HashMap<String, HashSet<String>>();
+        List<File> changed = new ArrayList<File>();
+
+        for (Map.Entry<String, Unwatched> e : _unwatched.entrySet()) {
+            File dir = new File(e.getKey());
+            long lastModified = dir.lastModified();
+
+            // Removed directory is handled by its parent
+            if (lastModified == 0 || lastModified == e.getValue().lastModified)
+                continue;
+
+            e.getValue().lastModified = lastModified;
+            String[] names = dir.list();
+
+            if (names == null)
+                continue;
+
+            listed.put(e.getKey(), new HashSet<String>(Arrays.asList(names)));
+            changed.add(dir);
+        }
+
+        if (listed.isEmpty())
+            return;
+
+        List<File> removed = new ArrayList<File>();
+
+        for (Entry entry : _entries.values()) {
+            HashSet<String> names = listed.get(entry.file.getParent());
+
+            if (names != null && !names.contains(entry.name))
+                removed.add(entry.file);
+        }
+
+        for (File file : removed)
+            remove(file);
+
+        for (File dir : changed) {
+            Unwatched unwatched = _unwatched.get(dir.getPath());
+
+            // Removed with an ancestor above
+            if (unwatched == null)
+                continue;
+
+            for (String name : listed.get(dir.getPath())) {
+                File file = new File(dir, name);
+                Entry prev = _entries.get(file.getPath());
+
+                // Replaced or modified entries differ in modification time
+                if (prev == null || prev.lastModified != file.lastModified())
+                    update(file, unwatched.topDir);
+            }
+        }
+    }
+
+    // Watch the directory before listing it so entries created in between are not lost
+    private void walk (File dir, TopDir topDir)
+    {
+        watch(dir, topDir);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+            for (Path path : stream) {
+                if (Thread.currentThread().isInterrupted())
+                    return;
+
+                Entry entry = put(path.toFile(), topDir);
+
+                if (entry != null && entry.isDirectory && topDir.recursive)
+                    walk(entry.file, topDir);
+            }
+        } catch (IOException e) {
+            Say.w("DocumentTree: unable to list directory: " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private Entry put (File file, TopDir topDir)
+    {
+        BasicFileAttributes attrs;
+
+        try {
+            attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class
+                , LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+
+        Entry prev = _entries.get(file.getPath());
+
+        if (prev != null) {
+            _entries.remove(file.getPath());
+            notifyRemoved(prev);
+            releaseId(prev.id);
+        }
+
+        Entry entry = new Entry(allocateId(), file, topDir, attrs, _mimeResolver);
+        _entries.put(file.getPath(), entry);
+
+        for (Listener l : _listeners)
+            l.onEntryAdded(entry);
+
+        return entry;
+    }
+
+    private void update (File file, TopDir topDir)
+    {
+        Entry prev = _entries.get(file.getPath());
+        Entry entry = put(file, topDir);
+
+        if (entry == null) {
+            // Disappeared before we got here
+            if (prev != null)
+                remove(file);
+
+            return;
+        }
+
+        // New directory (created or moved in): it may already contain files
+        if (entry.isDirectory && topDir.recursive && (prev == null || !prev.isDirectory))
+            walk(entry.file, topDir);
+    }
+
+    private void remove (File file)
+    {
+        String key = file.getPath();
+        Entry entry = _entries.remove(key);
+
+        if (entry == null)
+            return;
+
+        notifyRemoved(entry);
+        releaseId(entry.id);
+
+        if (entry.isDirectory) {
+            unwatch(key);
+
+            String prefix = key + File.separator;
+            List<Entry> descendants = new ArrayList<Entry>();
+
+            for (Iterator<Entry> it = _entries.values().iterator(); it.hasNext(); ) {
+                Entry e = it.next();
+
+                if (e.file.getPath().startsWith(prefix)) {
+                    it.remove();
+                    descendants.add(e);
+                }
+            }
+
+            for (Entry e : descendants) {
+                notifyRemoved(e);
+                releaseId(e.id);
+
+                if (e.isDirectory)
+                    unwatch(e.file.getPath());
+            }
+        }
+    }
+
+    private void notifyRemoved (Entry entry)
+    {
+        for (Listener l : _listeners)
+            l.onEntryRemoved(entry);
+    }
+}
@@ -0,0 +1,70 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import pfs.android.Say;
+
+// Access pattern hints for the kernel page cache by posix_fadvise(2).
+//
+// The call is not exposed by the Android SDK (android.system.Os has no
+// posix_fadvise), it is made by JNI (`daemon` library). Without the library
+// hints are not applied, which only costs performance.
+class FileAdvice
+{
+    // Indices of FILE_ADVICES in native-lib.cpp
+    static final int NORMAL     = 0;
+    static final int SEQUENTIAL = 1;
+    static final int RANDOM     = 2;
+    static final int WILLNEED   = 3;
+    static final int DONTNEED   = 4;
+    static final int NOREUSE    = 5;
+
+    private static final int ESPIPE = 29;
+
+    private static final boolean AVAILABLE;
+
+    static
+    {
+        boolean available = false;
+
+        try {
+            System.loadLibrary("daemon");
+            available = true;
+        } catch (UnsatisfiedLinkError e) {
+            Say.w("File access hints are not available: " + e.getMessage());
+        }
+
+        AVAILABLE = available;
+    }
+
+    private static native int nativeAdvise (int fd, long offset, long length, int advice);
+
+    static boolean isAvailable ()
+    {
+        return AVAILABLE;
+    }
+
+    /**
+     * @param length the length of the range, 0 means up to the end of the file
+     * @return true if the advice is applied
+     */
+    static boolean advise (int fd, long offset, long length, int advice)
+    {
+        if (!AVAILABLE)
+            return false;
+
+        int rc = nativeAdvise(fd, offset, length, advice);
+
+        // ESPIPE: content streamed by the provider through a pipe, nothing to advise
+        if (rc != 0 && rc != ESPIPE)
+            Say.d(String.format("posix_fadvise failure: fd=%d, advice=%d: errno=%d", fd, advice, rc));
+
+        return rc == 0;
+    }
+}
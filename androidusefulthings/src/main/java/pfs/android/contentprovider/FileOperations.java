@@ -0,0 +1,283 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.provider.DocumentsContract.Document;
+import android.webkit.MimeTypeMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Copy, move and delete of files and directory trees.
+//
+// File content is copied by FileChannel.transferTo(), which lets the kernel
+// move the data (sendfile/copy_file_range) without passing it through Java
+// buffers. A move is a rename when source and target are on the same file
+// system, otherwise a copy followed by a delete. Directory trees are
+// processed by a bounded fork-join pool, one task per entry, so independent
+// files are copied or deleted in parallel.
+//
+// There is no cancellation: DocumentsProvider passes no CancellationSignal to
+// copy, move and delete, they run to completion or failure.
+class FileOperations
+{
+    // transferTo() of a big file is split into chunks of this size
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    // Suffix numbers tried for a unique name, like "name (1).ext"
+    private static final int MAX_UNIQUE_SUFFIX = 32;
+
+    private final ForkJoinPool _pool;
+
+    FileOperations (int parallelism)
+    {
+        _pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    void shutdown ()
+    {
+        _pool.shutdownNow();
+    }
+
+    /**
+     * Copies a file or a directory tree. On failure the partially copied target is removed.
+     *
+     * @param source the file or directory to copy
+     * @param target the new file, must not exist
+     */
+    void copy (File source, File target) throws IOException
+    {
+        Path src = source.toPath();
+        Path dst = target.toPath();
+
+        if (dst.toAbsolutePath().normalize().startsWith(src.toAbsolutePath().normalize()))
+            throw new IOException("Unable to copy directory into itself: " + source);
+
+        try {
+            run(new CopyTask(src, dst));
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves a file or a directory tree by renaming it if possible, otherwise by copying and
+     * deleting the source.
+     *
+     * @param source the file or directory to move
+     * @param target the new file, must not exist
+     */
+    void move (File source, File target) throws IOException
+    {
+        // ATOMIC_MOVE is rename(2), which replaces an existing target silently
+        if (target.exists())
+            throw new IOException("Target already exists: " + target);
+
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return;
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different file systems (EXDEV)
+        }
+
+        copy(source, target);
+        delete(source);
+    }
+
+    /**
+     * Deletes a file or a directory tree. Symbolic links are deleted, not followed.
+     *
+     * @param file the file or directory to delete
+     */
+    void delete (File file) throws IOException
+    {
+        run(new DeleteTask(file.toPath()));
+    }
+
+    /**
+     * Builds a file with the given name under the parent directory that does not exist yet.
+     * Path separators in the name are replaced, an extension matching the MIME type is
+     * appended to names of files without one.
+     *
+     * @param parent      the parent directory
+     * @param mimeType    the MIME type of the new document (may be null)
+     * @param displayName the desired name
+     * @return file that does not exist
+     */
+    static File uniqueFile (File parent, String mimeType, String displayName) throws IOException
+    {
+        String name = displayName.replace('/', '_').replace('\0', '_');
+
+        if (name.isEmpty() || name.equals(".") || name.equals(".."))
+            name = "_" + name;
+
+        String base = name;
+        String ext = "";
+
+        if (mimeType != null && !Document.MIME_TYPE_DIR.equals(mimeType)) {
+            int lastDot = name.lastIndexOf('.');
+
+            if (lastDot > 0) {
+                base = name.substring(0, lastDot);
+                ext = name.substring(lastDot);
+            } else {
+                String knownExt = MimeTypeMap.getSingleton().getExtensionFromMimeType(mimeType);
+
+                if (knownExt != null)
+                    ext = "." + knownExt;
+            }
+        }
+
+        File file = new File(parent, base + ext);
+
+        for (int i = 1; file.exists(); i++) {
+            if (i > MAX_UNIQUE_SUFFIX)
+                throw new IOException("Unable to find a unique name for " + displayName + " in " + parent);
+
+            file = new File(parent, base + " (" + i + ")" + ext);
+        }
+
+        return file;
+    }
+
+    private void run (ForkJoinTask<?> task) throws IOException
+    {
+        try {
+            _pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void deleteQuietly (File file)
+    {
+        try {
+            new DeleteTask(file.toPath()).invoke();
+        } catch (RuntimeException e) {
+            // Best effort
+        }
+    }
+
+    private static void copyContent (Path src, Path dst) throws IOException
+    {
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dst, StandardOpenOption.CREATE_NEW
+                , StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long pos = 0;
+
+            while (pos < size) {
+                long n = in.transferTo(pos, Math.min(size - pos, TRANSFER_CHUNK_SIZE), out);
+
+                // Truncated by someone else meanwhile
+                if (n <= 0)
+                    break;
+
+                pos += n;
+            }
+        }
+    }
+
+    private static List<Path> listEntries (Path dir) throws IOException
+    {
+        ArrayList<Path> entries = new ArrayList<Path>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream)
+                entries.add(entry);
+        }
+
+        return entries;
+    }
+
+    private static final class CopyTask extends RecursiveAction
+    {
+        private final Path _src;
+        private final Path _dst;
+
+        CopyTask (Path src, Path dst)
+        {
+            _src = src;
+            _dst = dst;
+        }
+
+        @Override
+        protected void compute ()
+        {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(_src, BasicFileAttributes.class
+                    , LinkOption.NOFOLLOW_LINKS);
+
+                if (attrs.isDirectory()) {
+                    Files.createDirectory(_dst);
+                    List<Path> entries = listEntries(_src);
+                    List<CopyTask> tasks = new ArrayList<CopyTask>(entries.size());
+
+                    for (Path entry : entries)
+                        tasks.add(new CopyTask(entry, _dst.resolve(entry.getFileName())));
+
+                    invokeAll(tasks);
+                } else if (attrs.isRegularFile()) {
+                    copyContent(_src, _dst);
+                } else {
+                    // Symbolic link or special file
+                    Files.copy(_src, _dst, LinkOption.NOFOLLOW_LINKS);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class DeleteTask extends RecursiveAction
+    {
+        private final Path _path;
+
+        DeleteTask (Path path)
+        {
+            _path = path;
+        }
+
+        @Override
+        protected void compute ()
+        {
+            try {
+                if (Files.isDirectory(_path, LinkOption.NOFOLLOW_LINKS)) {
+                    List<Path> entries = listEntries(_path);
+                    List<DeleteTask> tasks = new ArrayList<DeleteTask>(entries.size());
+
+                    for (Path entry : entries)
+                        tasks.add(new DeleteTask(entry));
+
+                    invokeAll(tasks);
+                }
+
+                Files.delete(_path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Per top directory counts of document MIME types.
+//
+// Kept up to date by DocumentTree events. The newline separated type lists
+// published as Root.COLUMN_MIME_TYPES are rebuilt only when a type appears or
+// disappears, so readers get them in O(1). Until the initial walk is complete
+// every list is "*/*".
+class MimeCensus implements DocumentTree.Listener
+{
+    static final String ANY_MIME_TYPES = "*/*\n";
+
+    // Counts by MIME type per top directory, confined to the tree worker thread
+    private final HashMap<DocumentTree.TopDir, HashMap<String, int[]>> _counts
+        = new HashMap<DocumentTree.TopDir, HashMap<String, int[]>>();
+
+    private volatile boolean _seeded = false;
+    private volatile String _allTypes = ANY_MIME_TYPES;
+    private volatile Map<DocumentTree.TopDir, String> _topDirTypes
+        = new HashMap<DocumentTree.TopDir, String>();
+
+    @Override
+    public void onEntryAdded (DocumentTree.Entry entry)
+    {
+        if (entry.isDirectory)
+            return;
+
+        HashMap<String, int[]> counts = _counts.get(entry.topDir);
+
+        if (counts == null) {
+            counts = new HashMap<String, int[]>();
+            _counts.put(entry.topDir, counts);
+        }
+
+        int[] count = counts.get(entry.mimeType);
+
+        if (count == null) {
+            counts.put(entry.mimeType, new int[] { 1 });
+            publish();
+        } else {
+            count[0]++;
+        }
+    }
+
+    @Override
+    public void onEntryRemoved (DocumentTree.Entry entry)
+    {
+        if (entry.isDirectory)
+            return;
+
+        HashMap<String, int[]> counts = _counts.get(entry.topDir);
+        int[] count = counts != null ? counts.get(entry.mimeType) : null;
+
+        if (count != null && --count[0] == 0) {
+            counts.remove(entry.mimeType);
+            publish();
+        }
+    }
+
+    @Override
+    public void onSeedFinished ()
+    {
+        _seeded = true;
+        publish();
+    }
+
+    // Newline separated MIME types of documents under all top directories
+    String childMimeTypes ()
+    {
+        return _allTypes;
+    }
+
+    // Newline separated MIME types of documents under the top directory
+    String childMimeTypes (DocumentTree.TopDir topDir)
+    {
+        String types = _topDirTypes.get(topDir);
+        return types != null ? types : (_seeded ? "" : ANY_MIME_TYPES);
+    }
+
+    // Newline separated MIME types of documents under any of the top directories
+    String childMimeTypes (Collection<DocumentTree.TopDir> topDirs)
+    {
+        if (topDirs.size() == 1)
+            return childMimeTypes(topDirs.iterator().next());
+
+        if (!_seeded)
+            return ANY_MIME_TYPES;
+
+        TreeSet<String> types = new TreeSet<String>();
+
+        for (DocumentTree.TopDir topDir : topDirs) {
+            for (String type : childMimeTypes(topDir).split("\n")) {
+                if (!type.isEmpty())
+                    types.add(type);
+            }
+        }
+
+        return join(types);
+    }
+
+    private void publish ()
+    {
+        // Do not publish partial lists: a root could be filtered out by mistake
+        if (!_seeded)
+            return;
+
+        TreeSet<String> all = new TreeSet<String>();
+        HashMap<DocumentTree.TopDir, String> topDirTypes = new HashMap<DocumentTree.TopDir, String>();
+
+        for (Map.Entry<DocumentTree.TopDir, HashMap<String, int[]>> e : _counts.entrySet()) {
+            TreeSet<String> types = new TreeSet<String>(e.getValue().keySet());
+            all.addAll(types);
+            topDirTypes.put(e.getKey(), join(types));
+        }
+
+        _topDirTypes = topDirTypes;
+        _allTypes = join(all);
+    }
+
+    private static String join (Iterable<String> types)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (String type : types)
+            sb.append(type).append('\n');
+
+        return sb.toString();
+    }
+}
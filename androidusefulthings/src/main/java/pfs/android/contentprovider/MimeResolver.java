@@ -0,0 +1,310 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.webkit.MimeTypeMap;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// MIME type resolution for documents.
+//
+// 1. Known extensions are resolved by the precomputed ExtensionTable.
+// 2. Other extensions are looked up in the platform MimeTypeMap.
+// 3. Files without a recognized extension are identified by the magic bytes
+//    at the beginning of the content. Sniffed results are cached by path and
+//    modification time, so every file version is read at most once.
+class MimeResolver
+{
+    static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+    // Enough for all the signatures below and for the text heuristic
+    private static final int SNIFF_LENGTH = 512;
+
+    private static class Sniffed
+    {
+        final long lastModified;
+        final String mimeType;
+
+        Sniffed (long lastModified, String mimeType)
+        {
+            this.lastModified = lastModified;
+            this.mimeType = mimeType;
+        }
+    }
+
+    private final ExtensionTable _extensions = new ExtensionTable();
+    private final LinkedHashMap<String, Sniffed> _sniffed;
+
+    MimeResolver (final int maxCachedResults)
+    {
+        _sniffed = new LinkedHashMap<String, Sniffed>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<String, Sniffed> eldest)
+            {
+                return size() > maxCachedResults;
+            }
+        };
+    }
+
+    /**
+     * Resolves MIME type by file name only.
+     *
+     * @return MIME type or null if the extension is absent or not recognized
+     */
+    String typeForName (String name)
+    {
+        String mime = _extensions.lookupName(name);
+
+        if (mime != null)
+            return mime;
+
+        int lastDot = name.lastIndexOf('.');
+
+        if (lastDot < 0 || lastDot == name.length() - 1)
+            return null;
+
+        return MimeTypeMap.getSingleton().getMimeTypeFromExtension(
+            name.substring(lastDot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Resolves MIME type of a regular file, sniffing content if the name tells nothing.
+     *
+     * @param file         the file
+     * @param lastModified modification time of the file, validates the cached result
+     * @return MIME type, DEFAULT_MIME_TYPE if not recognized
+     */
+    String typeForFile (File file, long lastModified)
+    {
+        String mime = typeForName(file.getName());
+
+        if (mime != null)
+            return mime;
+
+        String key = file.getPath();
+
+        synchronized (_sniffed) {
+            Sniffed sniffed = _sniffed.get(key);
+
+            if (sniffed != null && sniffed.lastModified == lastModified)
+                return sniffed.mimeType;
+        }
+
+        mime = sniff(file);
+
+        synchronized (_sniffed) {
+            _sniffed.put(key, new Sniffed(lastModified, mime));
+        }
+
+        return mime;
+    }
+
+    static String sniff (File file)
+    {
+        byte[] buf = new byte[SNIFF_LENGTH];
+        int n = 0;
+
+        try (InputStream in = new FileInputStream(file)) {
+            int rc;
+
+            while (n < buf.length && (rc = in.read(buf, n, buf.length - n)) > 0)
+                n += rc;
+        } catch (IOException e) {
+            return DEFAULT_MIME_TYPE;
+        }
+
+        return sniff(buf, n);
+    }
+
+    static String sniff (byte[] b, int n)
+    {
+        if (startsWith(b, n, 0, 0xFF, 0xD8, 0xFF))
+            return "image/jpeg";
+
+        if (startsWith(b, n, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A))
+            return "image/png";
+
+        if (startsWith(b, n, 0, 'G', 'I', 'F', '8'))
+            return "image/gif";
+
+        if (startsWith(b, n, 0, 'B', 'M') && n > 14)
+            return "image/bmp";
+
+        if (startsWith(b, n, 0, 'R', 'I', 'F', 'F')) {
+            if (startsWith(b, n, 8, 'W', 'E', 'B', 'P'))
+                return "image/webp";
+
+            if (startsWith(b, n, 8, 'W', 'A', 'V', 'E'))
+                return "audio/x-wav";
+
+            if (startsWith(b, n, 8, 'A', 'V', 'I', ' '))
+                return "video/x-msvideo";
+        }
+
+        if (startsWith(b, n, 4, 'f', 't', 'y', 'p')) {
+            if (startsWith(b, n, 8, 'h', 'e', 'i', 'c') || startsWith(b, n, 8, 'h', 'e', 'i', 'x'))
+                return "image/heic";
+
+            if (startsWith(b, n, 8, 'M', '4', 'A'))
+                return "audio/mp4";
+
+            if (startsWith(b, n, 8, '3', 'g'))
+                return "video/3gpp";
+
+            return "video/mp4";
+        }
+
+        if (startsWith(b, n, 0, 0x1A, 0x45, 0xDF, 0xA3))
+            return "video/webm";
+
+        if (startsWith(b, n, 0, '%', 'P', 'D', 'F', '-'))
+            return "application/pdf";
+
+        if (startsWith(b, n, 0, 'P', 'K', 0x03, 0x04))
+            return "application/zip";
+
+        if (startsWith(b, n, 0, 0x1F, 0x8B))
+            return "application/gzip";
+
+        if (startsWith(b, n, 0, 'B', 'Z', 'h'))
+            return "application/x-bzip2";
+
+        if (startsWith(b, n, 0, 0xFD, '7', 'z', 'X', 'Z', 0x00))
+            return "application/x-xz";
+
+        if (startsWith(b, n, 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C))
+            return "application/x-7z-compressed";
+
+        if (startsWith(b, n, 0, 'R', 'a', 'r', '!'))
+            return "application/x-rar-compressed";
+
+        if (startsWith(b, n, 0, 'O', 'g', 'g', 'S'))
+            return "audio/ogg";
+
+        if (startsWith(b, n, 0, 'f', 'L', 'a', 'C'))
+            return "audio/flac";
+
+        if (startsWith(b, n, 0, 'I', 'D', '3') || startsWith(b, n, 0, 0xFF, 0xFB))
+            return "audio/mpeg";
+
+        if (startsWith(b, n, 0, 'S', 'Q', 'L', 'i', 't', 'e', ' ', 'f', 'o', 'r', 'm', 'a', 't'))
+            return "application/vnd.sqlite3";
+
+        if (startsWith(b, n, 0, 0x7F, 'E', 'L', 'F'))
+            return "application/x-elf";
+
+        if (startsWith(b, n, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1))
+            return "application/x-ole-storage";
+
+        if (isText(b, n)) {
+            int i = skipWhitespace(b, n);
+
+            if (startsWith(b, n, i, '<', '?', 'x', 'm', 'l'))
+                return "text/xml";
+
+            if (startsWithIgnoreCase(b, n, i, "<!doctype html") || startsWithIgnoreCase(b, n, i, "<html"))
+                return "text/html";
+
+            if (i < n && (b[i] == '{' || b[i] == '['))
+                return "application/json";
+
+            return "text/plain";
+        }
+
+        return DEFAULT_MIME_TYPE;
+    }
+
+    private static boolean startsWith (byte[] b, int n, int offset, int... magic)
+    {
+        if (offset + magic.length > n)
+            return false;
+
+        for (int i = 0; i < magic.length; i++) {
+            if ((b[offset + i] & 0xFF) != magic[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase (byte[] b, int n, int offset, String prefix)
+    {
+        if (offset + prefix.length() > n)
+            return false;
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase((char) (b[offset + i] & 0xFF)) != prefix.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int skipWhitespace (byte[] b, int n)
+    {
+        int i = 0;
+
+        // UTF-8 byte order mark
+        if (startsWith(b, n, 0, 0xEF, 0xBB, 0xBF))
+            i = 3;
+
+        while (i < n && (b[i] == ' ' || b[i] == '\t' || b[i] == '\r' || b[i] == '\n'))
+            i++;
+
+        return i;
+    }
+
+    // Printable ASCII or well-formed UTF-8 without NUL and most control characters
+    private static boolean isText (byte[] b, int n)
+    {
+        if (n == 0)
+            return false;
+
+        int i = 0;
+
+        while (i < n) {
+            int c = b[i] & 0xFF;
+
+            if (c < 0x80) {
+                if (c < 0x20 && c != '\t' && c != '\n' && c != '\r' && c != '\f' && c != 0x1B)
+                    return false;
+
+                i++;
+                continue;
+            }
+
+            int extra;
+
+            if ((c & 0xE0) == 0xC0)
+                extra = 1;
+            else if ((c & 0xF0) == 0xE0)
+                extra = 2;
+            else if ((c & 0xF8) == 0xF0)
+                extra = 3;
+            else
+                return false;
+
+            // Sequence cut by the end of the sniffed block is fine
+            for (int k = 1; k <= extra && i + k < n; k++) {
+                if ((b[i + k] & 0xC0) != 0x80)
+                    return false;
+            }
+
+            i += extra + 1;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+// A descriptor opened by Bridge and not closed yet, see Bridge.openDescriptors()
+public class OpenDescriptor
+{
+    public int fd;
+
+    // Path (URI) passed to Bridge.openRawReadOnly(), null if tracking was disabled
+    public String path;
+
+    // Time of opening (System.currentTimeMillis()), 0 if tracking was disabled
+    public long openedAt;
+
+    // Stack trace of the opening call, null if tracking was disabled
+    public Throwable openedBy;
+
+    @Override
+    public String toString ()
+    {
+        return openedAt > 0
+            ? String.format("fd=%d, path=%s, opened %d ms ago", fd, path
+                , System.currentTimeMillis() - openedAt)
+            : String.format("fd=%d", fd);
+    }
+}
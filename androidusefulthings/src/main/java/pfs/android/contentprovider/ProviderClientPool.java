@@ -0,0 +1,203 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.content.ContentProviderClient;
+import android.content.ContentResolver;
+import android.os.DeadObjectException;
+import android.os.RemoteException;
+
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import pfs.android.Say;
+
+// Acquired ContentProviderClient per authority, shared by calls.
+//
+// ContentResolver acquires and releases the provider for every single call,
+// i.e. a provider lookup and reference counting on both sides of Binder.
+// Here a client is acquired once and kept while it is used. A client not
+// used for the idle timeout is released by a background sweep, so the
+// provider process is not held forever. Clients are unstable: death of the
+// provider process does not kill the caller, the operation gets
+// DeadObjectException and is retried once with a re-acquired client.
+class ProviderClientPool
+{
+    interface Operation<T>
+    {
+        T run (ContentProviderClient client) throws RemoteException, FileNotFoundException;
+    }
+
+    private static final class Entry
+    {
+        final String authority;
+        final ContentProviderClient client;
+        int users = 0;
+        long lastUsed;
+        boolean dead = false;
+
+        Entry (String authority, ContentProviderClient client)
+        {
+            this.authority = authority;
+            this.client = client;
+        }
+    }
+
+    private final ContentResolver _resolver;
+    private final long _idleMillis;
+    private final HashMap<String, Entry> _entries = new HashMap<String, Entry>();
+    private ScheduledThreadPoolExecutor _sweeper = null;
+    private ScheduledFuture<?> _sweep = null;
+
+    private final Runnable _sweepTask = new Runnable() {
+        @Override
+        public void run ()
+        {
+            sweep();
+        }
+    };
+
+    ProviderClientPool (ContentResolver resolver, long idleMillis)
+    {
+        _resolver = resolver;
+        _idleMillis = idleMillis;
+    }
+
+    /**
+     * Runs the operation with the client of the authority, once more with a re-acquired
+     * client if the provider died.
+     *
+     * @throws FileNotFoundException if there is no provider for the authority (or thrown by
+     *         the operation)
+     * @throws RemoteException if the operation failed (again)
+     */
+    <T> T execute (String authority, Operation<T> op) throws RemoteException, FileNotFoundException
+    {
+        for (int attempt = 0; ; attempt++) {
+            Entry entry = acquire(authority);
+            boolean dead = false;
+
+            if (entry == null)
+                throw new FileNotFoundException("No content provider: " + authority);
+
+            try {
+                return op.run(entry.client);
+            } catch (DeadObjectException ex) {
+                dead = true;
+
+                if (attempt > 0)
+                    throw ex;
+
+                Say.d(String.format("Provider died: %s, retry", authority));
+            } finally {
+                release(entry, dead);
+            }
+        }
+    }
+
+    // Releases all idle clients, others are released when their operations complete
+    synchronized void releaseAll ()
+    {
+        Iterator<Entry> it = _entries.values().iterator();
+
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            entry.dead = true;
+            it.remove();
+
+            if (entry.users == 0)
+                entry.client.close();
+        }
+    }
+
+    private synchronized Entry acquire (String authority)
+    {
+        Entry entry = _entries.get(authority);
+
+        if (entry == null) {
+            ContentProviderClient client = _resolver.acquireUnstableContentProviderClient(authority);
+
+            if (client == null)
+                return null;
+
+            entry = new Entry(authority, client);
+            _entries.put(authority, entry);
+        }
+
+        entry.users++;
+        return entry;
+    }
+
+    private synchronized void release (Entry entry, boolean dead)
+    {
+        entry.users--;
+        entry.lastUsed = System.currentTimeMillis();
+
+        // Next acquire() gets a new client, the dead one is released by its last user
+        if (dead && !entry.dead) {
+            entry.dead = true;
+
+            if (_entries.get(entry.authority) == entry)
+                _entries.remove(entry.authority);
+        }
+
+        if (entry.users == 0) {
+            if (entry.dead)
+                entry.client.close();
+            else
+                scheduleSweep();
+        }
+    }
+
+    private synchronized void sweep ()
+    {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = _entries.values().iterator();
+
+        _sweep = null;
+
+        while (it.hasNext()) {
+            Entry entry = it.next();
+
+            if (entry.users == 0 && now - entry.lastUsed >= _idleMillis) {
+                Say.d(String.format("Release idle provider client: %s", entry.authority));
+                it.remove();
+                entry.client.close();
+            }
+        }
+
+        if (!_entries.isEmpty())
+            scheduleSweep();
+    }
+
+    private void scheduleSweep ()
+    {
+        if (_sweep != null)
+            return;
+
+        if (_sweeper == null) {
+            _sweeper = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread (Runnable r)
+                {
+                    Thread thread = new Thread(r, "Bridge client pool");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        _sweep = _sweeper.schedule(_sweepTask, _idleMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,204 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.Bundle;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Per method counters and latency histograms of the provider.
+//
+// Recording is a few atomic increments, no allocation and no locking, so it
+// stays enabled in production builds. Histograms have fixed bucket bounds,
+// percentiles reported by dump() are upper bounds of the bucket they fall in.
+class ProviderStats
+{
+    static final int QUERY_ROOTS             = 0;
+    static final int QUERY_DOCUMENT          = 1;
+    static final int QUERY_CHILD_DOCUMENTS   = 2;
+    static final int OPEN_DOCUMENT           = 3;
+    static final int OPEN_DOCUMENT_THUMBNAIL = 4;
+    static final int CALL                    = 5;
+
+    private static final String[] METHOD_NAMES = new String[] {
+          "queryRoots"
+        , "queryDocument"
+        , "queryChildDocuments"
+        , "openDocument"
+        , "openDocumentThumbnail"
+        , "call"
+    };
+
+    // Upper bounds of histogram buckets in microseconds, the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS_US = new long[] {
+        100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000
+    };
+
+    private static final int BUCKETS = BUCKET_BOUNDS_US.length + 1;
+
+    private final AtomicLongArray _calls = new AtomicLongArray(METHOD_NAMES.length);
+    private final AtomicLongArray _errors = new AtomicLongArray(METHOD_NAMES.length);
+    private final AtomicLongArray _rows = new AtomicLongArray(METHOD_NAMES.length);
+    private final AtomicLongArray _totalUs = new AtomicLongArray(METHOD_NAMES.length);
+    private final AtomicLongArray _maxUs = new AtomicLongArray(METHOD_NAMES.length);
+    private final AtomicLongArray _histograms = new AtomicLongArray(METHOD_NAMES.length * BUCKETS);
+    private final AtomicLong _bytesOpened = new AtomicLong();
+
+    // Startup: time spent in onCreate(), duration of the deferred initialization and time
+    // entry points were blocked waiting for it (-1 if not happened yet)
+    private volatile long _createUs = -1;
+    private volatile long _initUs = -1;
+    private final AtomicLong _initWaits = new AtomicLong();
+    private final AtomicLong _initWaitUs = new AtomicLong();
+
+    // Returns the start time to pass to record()
+    long start ()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * @param method  the method (QUERY_ROOTS etc.)
+     * @param started the value returned by start()
+     * @param rows    the number of rows returned
+     * @param failed  the method thrown an exception or returned nothing
+     */
+    void record (int method, long started, int rows, boolean failed)
+    {
+        long us = (System.nanoTime() - started) / 1000;
+
+        _calls.incrementAndGet(method);
+        _totalUs.addAndGet(method, us);
+        _rows.addAndGet(method, rows);
+        _histograms.incrementAndGet(method * BUCKETS + bucketOf(us));
+
+        if (failed)
+            _errors.incrementAndGet(method);
+
+        long max;
+
+        while (us > (max = _maxUs.get(method)) && !_maxUs.compareAndSet(method, max, us))
+            ;
+    }
+
+    void recordCreate (long started)
+    {
+        _createUs = (System.nanoTime() - started) / 1000;
+    }
+
+    void recordInit (long started)
+    {
+        _initUs = (System.nanoTime() - started) / 1000;
+    }
+
+    void recordInitWait (long started)
+    {
+        _initWaits.incrementAndGet();
+        _initWaitUs.addAndGet((System.nanoTime() - started) / 1000);
+    }
+
+    void addBytesOpened (long bytes)
+    {
+        if (bytes > 0)
+            _bytesOpened.addAndGet(bytes);
+    }
+
+    /**
+     * @return bundle with `bucket_bounds_us` (long[]), `bytes_opened`, `create_us`, `init_us`,
+     *         `init_waits`, `init_wait_us` (long) and a bundle per method name with `calls`,
+     *         `errors`, `rows`, `total_us`, `max_us` (long) and `histogram` (long[], counts
+     *         per bucket)
+     */
+    Bundle toBundle ()
+    {
+        Bundle result = new Bundle();
+        result.putLongArray("bucket_bounds_us", BUCKET_BOUNDS_US.clone());
+        result.putLong("bytes_opened", _bytesOpened.get());
+        result.putLong("create_us", _createUs);
+        result.putLong("init_us", _initUs);
+        result.putLong("init_waits", _initWaits.get());
+        result.putLong("init_wait_us", _initWaitUs.get());
+
+        for (int method = 0; method < METHOD_NAMES.length; method++) {
+            Bundle stats = new Bundle();
+            stats.putLong("calls", _calls.get(method));
+            stats.putLong("errors", _errors.get(method));
+            stats.putLong("rows", _rows.get(method));
+            stats.putLong("total_us", _totalUs.get(method));
+            stats.putLong("max_us", _maxUs.get(method));
+            stats.putLongArray("histogram", histogram(method));
+            result.putBundle(METHOD_NAMES[method], stats);
+        }
+
+        return result;
+    }
+
+    void dump (PrintWriter writer)
+    {
+        writer.println("Provider statistics (latency in microseconds):");
+        writer.println(String.format("  %-22s %8s %6s %9s %8s %8s %8s %8s %8s"
+            , "method", "calls", "errors", "rows", "avg", "p50", "p90", "p99", "max"));
+
+        for (int method = 0; method < METHOD_NAMES.length; method++) {
+            long calls = _calls.get(method);
+            long[] histogram = histogram(method);
+
+            writer.println(String.format("  %-22s %8d %6d %9d %8d %8s %8s %8s %8d"
+                , METHOD_NAMES[method], calls, _errors.get(method), _rows.get(method)
+                , calls > 0 ? _totalUs.get(method) / calls : 0
+                , percentile(histogram, calls, 50), percentile(histogram, calls, 90)
+                , percentile(histogram, calls, 99), _maxUs.get(method)));
+        }
+
+        writer.println("  bytes opened: " + _bytesOpened.get());
+        writer.println(String.format("  startup: onCreate %d us, initialization %s, %d waits for %d us"
+            , _createUs, _initUs >= 0 ? _initUs + " us" : "pending", _initWaits.get(), _initWaitUs.get()));
+    }
+
+    private long[] histogram (int method)
+    {
+        long[] histogram = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++)
+            histogram[i] = _histograms.get(method * BUCKETS + i);
+
+        return histogram;
+    }
+
+    private static int bucketOf (long us)
+    {
+        int i = 0;
+
+        while (i < BUCKET_BOUNDS_US.length && us > BUCKET_BOUNDS_US[i])
+            i++;
+
+        return i;
+    }
+
+    // Upper bound of the bucket containing the percentile, "-" if there is no data
+    private static String percentile (long[] histogram, long calls, int percent)
+    {
+        if (calls == 0)
+            return "-";
+
+        long rank = (calls * percent + 99) / 100;
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_BOUNDS_US.length; i++) {
+            seen += histogram[i];
+
+            if (seen >= rank)
+                return "<=" + BUCKET_BOUNDS_US[i];
+        }
+
+        return ">" + BUCKET_BOUNDS_US[BUCKET_BOUNDS_US.length - 1];
+    }
+}
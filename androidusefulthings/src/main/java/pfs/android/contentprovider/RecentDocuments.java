@@ -0,0 +1,171 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Top-K most recently modified documents per top directory (directories are
+// not included).
+//
+// Kept up to date by DocumentTree events. Every top directory has its own
+// bounded set, so a busy top directory does not push the documents of the
+// others out of their roots' recents. A set holds twice as many entries as
+// served so that removals rarely leave it short. If it does become short
+// after entries were dropped, it is refilled from the in-memory tree, which
+// costs no file system calls.
+class RecentDocuments implements DocumentTree.Listener
+{
+    private static final Comparator<DocumentTree.Entry> NEWEST_FIRST = new Comparator<DocumentTree.Entry>() {
+        @Override
+        public int compare (DocumentTree.Entry a, DocumentTree.Entry b)
+        {
+            if (a.lastModified != b.lastModified)
+                return a.lastModified > b.lastModified ? -1 : 1;
+
+            return a.file.getPath().compareTo(b.file.getPath());
+        }
+    };
+
+    private static final class TopK
+    {
+        final TreeSet<DocumentTree.Entry> entries = new TreeSet<DocumentTree.Entry>(NEWEST_FIRST);
+
+        // Set when at least one entry was pushed out by newer ones
+        boolean truncated = false;
+    }
+
+    private final DocumentTree _tree;
+    private final int _limit;
+    private final int _capacity;
+
+    // Guarded by `this`
+    private final HashMap<DocumentTree.TopDir, TopK> _topKs = new HashMap<DocumentTree.TopDir, TopK>();
+
+    RecentDocuments (DocumentTree tree, int limit)
+    {
+        _tree = tree;
+        _limit = limit;
+        _capacity = limit * 2;
+    }
+
+    @Override
+    public void onEntryAdded (DocumentTree.Entry entry)
+    {
+        if (entry.isDirectory)
+            return;
+
+        synchronized (this) {
+            TopK topK = _topKs.get(entry.topDir);
+
+            if (topK == null) {
+                topK = new TopK();
+                _topKs.put(entry.topDir, topK);
+            }
+
+            offer(topK, entry);
+        }
+    }
+
+    @Override
+    public void onEntryRemoved (final DocumentTree.Entry entry)
+    {
+        if (entry.isDirectory)
+            return;
+
+        final TopK topK;
+
+        synchronized (this) {
+            TopK t = _topKs.get(entry.topDir);
+
+            if (t == null || !t.entries.remove(entry) || !t.truncated || t.entries.size() >= _limit)
+                return;
+
+            topK = t;
+        }
+
+        // Called on the tree worker thread, so the tree can be traversed here
+        final List<DocumentTree.Entry> all = new ArrayList<DocumentTree.Entry>();
+
+        _tree.forEachEntry(new DocumentTree.Visitor() {
+            @Override
+            public void visit (DocumentTree.Entry e)
+            {
+                if (!e.isDirectory && e != entry && e.topDir == entry.topDir)
+                    all.add(e);
+            }
+        });
+
+        synchronized (this) {
+            topK.entries.clear();
+            topK.truncated = false;
+
+            for (DocumentTree.Entry e : all)
+                offer(topK, e);
+        }
+    }
+
+    @Override
+    public void onSeedFinished () {}
+
+    private void offer (TopK topK, DocumentTree.Entry entry)
+    {
+        if (topK.entries.size() >= _capacity) {
+            if (NEWEST_FIRST.compare(entry, topK.entries.last()) > 0) {
+                topK.truncated = true;
+                return;
+            }
+
+            topK.entries.pollLast();
+            topK.truncated = true;
+        }
+
+        topK.entries.add(entry);
+    }
+
+    // Returns at most `limit` newest entries, newest first.
+    synchronized List<DocumentTree.Entry> snapshot ()
+    {
+        return snapshot(null);
+    }
+
+    // Recent entries under the top directories (null for all of them)
+    synchronized List<DocumentTree.Entry> snapshot (Set<DocumentTree.TopDir> topDirs)
+    {
+        Collection<DocumentTree.TopDir> keys = topDirs != null ? topDirs : _topKs.keySet();
+        TreeSet<DocumentTree.Entry> merged = new TreeSet<DocumentTree.Entry>(NEWEST_FIRST);
+
+        // Only the first `limit` entries of every top directory can make it into the result
+        for (DocumentTree.TopDir topDir : keys) {
+            TopK topK = _topKs.get(topDir);
+
+            if (topK == null)
+                continue;
+
+            Iterator<DocumentTree.Entry> it = topK.entries.iterator();
+
+            for (int i = 0; i < _limit && it.hasNext(); i++)
+                merged.add(it.next());
+        }
+
+        List<DocumentTree.Entry> result = new ArrayList<DocumentTree.Entry>(Math.min(_limit, merged.size()));
+        Iterator<DocumentTree.Entry> it = merged.iterator();
+
+        while (it.hasNext() && result.size() < _limit)
+            result.add(it.next());
+
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.os.Handler;
+import android.os.StatFs;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import pfs.android.Say;
+
+// Available space of file systems, sampled in background.
+//
+// Paths are sampled by StatFs on the handler thread right after start and
+// then every interval, so readers (queryRoots) never block on statfs(2).
+// A refresh can be requested after the provider itself has changed the
+// amount of data, it is coalesced with other pending refreshes.
+class StatFsSampler
+{
+    static final long UNKNOWN = -1;
+
+    private final Handler _handler;
+    private final long _intervalMillis;
+    private final LinkedHashSet<File> _paths;
+
+    // Path -> available bytes
+    private final ConcurrentHashMap<String, Long> _available = new ConcurrentHashMap<String, Long>();
+
+    private final Runnable _periodic = new Runnable() {
+        @Override
+        public void run ()
+        {
+            sample();
+            _handler.postDelayed(this, _intervalMillis);
+        }
+    };
+
+    private final Runnable _refresh = new Runnable() {
+        @Override
+        public void run ()
+        {
+            sample();
+        }
+    };
+
+    StatFsSampler (Collection<File> paths, Handler handler, long intervalMillis)
+    {
+        _paths = new LinkedHashSet<File>(paths);
+        _handler = handler;
+        _intervalMillis = intervalMillis;
+    }
+
+    void start ()
+    {
+        _handler.post(_periodic);
+    }
+
+    void stop ()
+    {
+        _handler.removeCallbacks(_periodic);
+        _handler.removeCallbacks(_refresh);
+    }
+
+    void refresh ()
+    {
+        _handler.removeCallbacks(_refresh);
+        _handler.post(_refresh);
+    }
+
+    /**
+     * @return bytes available to the application at the file system containing the path
+     *         (as of the last sample), or UNKNOWN if not sampled yet or sampling failed
+     */
+    long availableBytes (File path)
+    {
+        Long available = _available.get(path.getPath());
+        return available != null ? available : UNKNOWN;
+    }
+
+    private void sample ()
+    {
+        for (File path : _paths) {
+            try {
+                _available.put(path.getPath(), new StatFs(path.getPath()).getAvailableBytes());
+            } catch (IllegalArgumentException e) {
+                // Thrown by StatFs for a failed statfs(2), e.g. unmounted volume
+                Say.w("StatFsSampler: unable to sample " + path + ": " + e.getMessage());
+                _available.remove(path.getPath());
+            }
+        }
+    }
+}
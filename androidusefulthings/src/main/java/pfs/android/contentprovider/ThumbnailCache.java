@@ -0,0 +1,242 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.graphics.Point;
+import android.media.ExifInterface;
+import android.os.CancellationSignal;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+// Downsampled image thumbnails stored in a size-bounded disk cache.
+//
+// Thumbnails are keyed by (source path, source modification time, size
+// bucket), so a modified source never hits a stale thumbnail. Thumbnails are
+// rotated upright by the EXIF orientation of the source. Concurrent
+// requests for the same key share a single decode. The least recently used
+// thumbnails are deleted when the total size exceeds the limit.
+class ThumbnailCache
+{
+    // Requested sizes are rounded up to one of these buckets
+    private static final int[] SIZE_BUCKETS = { 128, 256, 512, 1024 };
+
+    private static final int JPEG_QUALITY = 85;
+
+    // Failed decodes are remembered for this time, so corrupt or unsupported images are
+    // not decoded again by every request
+    private static final long FAILURE_TTL = 60 * 1000;
+    private static final int MAX_FAILURES = 256;
+
+    private final DiskLruFiles _files;
+
+    // Access ordered key -> time the failure expires, guarded by itself
+    private final LinkedHashMap<String, Long> _failures = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry (Map.Entry<String, Long> eldest)
+        {
+            return size() > MAX_FAILURES;
+        }
+    };
+
+    ThumbnailCache (File dir, long maxBytes)
+    {
+        _files = new DiskLruFiles(dir, maxBytes);
+    }
+
+    static int sizeBucket (Point sizeHint)
+    {
+        int size = sizeHint != null ? Math.max(sizeHint.x, sizeHint.y) : 0;
+
+        for (int bucket : SIZE_BUCKETS) {
+            if (size <= bucket)
+                return bucket;
+        }
+
+        return SIZE_BUCKETS[SIZE_BUCKETS.length - 1];
+    }
+
+    /**
+     * Returns the thumbnail file for the image, generating it if necessary.
+     *
+     * @throws FileNotFoundException if the source can not be decoded
+     * @throws android.os.OperationCanceledException if the request was canceled
+     */
+    File get (final File source, Point sizeHint, CancellationSignal signal) throws FileNotFoundException
+    {
+        final int bucket = sizeBucket(sizeHint);
+        String key = key(source, bucket);
+        File thumb = _files.get(key);
+
+        if (thumb != null)
+            return thumb;
+
+        synchronized (_failures) {
+            Long expires = _failures.get(key);
+
+            if (expires != null) {
+                if (expires > System.currentTimeMillis())
+                    throw new FileNotFoundException("Failed to generate thumbnail recently for " + source);
+
+                _failures.remove(key);
+            }
+        }
+
+        if (signal != null)
+            signal.throwIfCanceled();
+
+        try {
+            return _files.put(key, new DiskLruFiles.Writer() {
+                @Override
+                public void write (File temp) throws IOException
+                {
+                    generate(source, bucket, temp);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileNotFoundException("Interrupted while generating thumbnail for " + source);
+        } catch (ExecutionException e) {
+            synchronized (_failures) {
+                _failures.put(key, System.currentTimeMillis() + FAILURE_TTL);
+            }
+
+            throw new FileNotFoundException(String.format("Failed to generate thumbnail for %s: %s"
+                , source, e.getCause()));
+        }
+    }
+
+    void clear ()
+    {
+        _files.clear();
+    }
+
+    private static String key (File source, int bucket)
+    {
+        String text = source.getAbsolutePath() + '\n' + source.lastModified() + '\n' + bucket;
+        return DiskLruFiles.hashKey(text);
+    }
+
+    private static void generate (File source, int bucket, File temp) throws IOException
+    {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getPath(), opts);
+
+        if (opts.outWidth <= 0 || opts.outHeight <= 0)
+            throw new IOException("Unsupported image");
+
+        // Largest power of two that keeps the smaller side not less than the bucket
+        int sampleSize = 1;
+        int minSide = Math.min(opts.outWidth, opts.outHeight);
+
+        while (minSide / (sampleSize * 2) >= bucket)
+            sampleSize *= 2;
+
+        opts = new BitmapFactory.Options();
+        opts.inSampleSize = sampleSize;
+
+        Bitmap bitmap = BitmapFactory.decodeFile(source.getPath(), opts);
+
+        if (bitmap == null)
+            throw new IOException("Unable to decode image");
+
+        // Subsampling is coarse, bring the larger side down to the bucket
+        int maxSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+
+        if (maxSide > bucket) {
+            float scale = (float) bucket / maxSide;
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap
+                , Math.max(1, Math.round(bitmap.getWidth() * scale))
+                , Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+
+            if (scaled != bitmap) {
+                bitmap.recycle();
+                bitmap = scaled;
+            }
+        }
+
+        bitmap = orient(bitmap, source);
+
+        try {
+            FileOutputStream out = new FileOutputStream(temp);
+
+            try {
+                Bitmap.CompressFormat format = bitmap.hasAlpha()
+                    ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+                bitmap.compress(format, JPEG_QUALITY, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    // Applies the EXIF orientation of the source, the returned bitmap replaces (and recycles)
+    // the given one
+    private static Bitmap orient (Bitmap bitmap, File source)
+    {
+        int orientation;
+
+        try {
+            orientation = new ExifInterface(source.getPath()).getAttributeInt(
+                ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            // No EXIF (not a JPEG, HEIF, etc.)
+            return bitmap;
+        }
+
+        Matrix matrix = new Matrix();
+
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                return bitmap;
+        }
+
+        Bitmap oriented = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight()
+            , matrix, true);
+
+        if (oriented != bitmap)
+            bitmap.recycle();
+
+        return oriented;
+    }
+}
@@ -0,0 +1,242 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Case-insensitive substring index over display names.
+//
+// Every name is split into overlapping three-character grams. A query is
+// answered by taking the shortest posting list among the grams of the query
+// and verifying each candidate with a plain substring test. Queries shorter
+// than a gram fall back to a linear scan of names, stopping at the limit.
+//
+// Kept up to date by DocumentTree events, readers may run concurrently with
+// the updating thread. Posting lists of common grams grow with the whole
+// tree, so removal is lazy: a slot holds the generation of the identifier
+// it was added with and goes stale when the entry is removed. A list is
+// compacted when half of it is stale, which keeps removal O(1) amortized.
+class TrigramIndex implements DocumentTree.Listener
+{
+    private static final int GRAM = 3;
+
+    private static class Postings
+    {
+        int[] ids = new int[4];
+        int[] gens = new int[4];
+        int size = 0;
+        int stale = 0;
+
+        void add (int id, int gen)
+        {
+            if (size == ids.length) {
+                int[] a = new int[size * 2];
+                int[] g = new int[size * 2];
+                System.arraycopy(ids, 0, a, 0, size);
+                System.arraycopy(gens, 0, g, 0, size);
+                ids = a;
+                gens = g;
+            }
+
+            ids[size] = id;
+            gens[size] = gen;
+            size++;
+        }
+
+        int liveSize ()
+        {
+            return size - stale;
+        }
+    }
+
+    private final HashMap<Long, Postings> _postings = new HashMap<Long, Postings>();
+
+    // Indexed by entry identifier
+    private String[] _names = new String[256];
+    private DocumentTree.Entry[] _entries = new DocumentTree.Entry[256];
+
+    // Incremented when the entry is removed, identifiers are reused
+    private int[] _gens = new int[256];
+
+    private int _count = 0;
+
+    private static long gram (String s, int pos)
+    {
+        return ((long) s.charAt(pos) << 32) | ((long) s.charAt(pos + 1) << 16) | s.charAt(pos + 2);
+    }
+
+    private static String normalize (String s)
+    {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    // Each gram once, a repeated gram would put the entry into its list twice
+    private static HashSet<Long> grams (String name)
+    {
+        HashSet<Long> grams = new HashSet<Long>();
+
+        for (int i = 0; i + GRAM <= name.length(); i++)
+            grams.add(gram(name, i));
+
+        return grams;
+    }
+
+    private boolean isLive (Postings postings, int slot)
+    {
+        return postings.gens[slot] == _gens[postings.ids[slot]];
+    }
+
+    private void compact (Postings postings)
+    {
+        int n = 0;
+
+        for (int i = 0; i < postings.size; i++) {
+            if (isLive(postings, i)) {
+                postings.ids[n] = postings.ids[i];
+                postings.gens[n] = postings.gens[i];
+                n++;
+            }
+        }
+
+        postings.size = n;
+        postings.stale = 0;
+    }
+
+    @Override
+    public synchronized void onEntryAdded (DocumentTree.Entry entry)
+    {
+        int id = entry.id;
+
+        if (id >= _entries.length) {
+            int capacity = Math.max(id + 1, _entries.length * 2);
+            String[] names = new String[capacity];
+            DocumentTree.Entry[] entries = new DocumentTree.Entry[capacity];
+            int[] gens = new int[capacity];
+            System.arraycopy(_names, 0, names, 0, _names.length);
+            System.arraycopy(_entries, 0, entries, 0, _entries.length);
+            System.arraycopy(_gens, 0, gens, 0, _gens.length);
+            _names = names;
+            _entries = entries;
+            _gens = gens;
+        }
+
+        String name = normalize(entry.name);
+        _names[id] = name;
+        _entries[id] = entry;
+        _count++;
+
+        for (Long key : grams(name)) {
+            Postings postings = _postings.get(key);
+
+            if (postings == null) {
+                postings = new Postings();
+                _postings.put(key, postings);
+            }
+
+            postings.add(id, _gens[id]);
+        }
+    }
+
+    @Override
+    public synchronized void onEntryRemoved (DocumentTree.Entry entry)
+    {
+        int id = entry.id;
+
+        if (id >= _entries.length || _entries[id] != entry)
+            return;
+
+        String name = _names[id];
+
+        // Slots of the entry go stale
+        _gens[id]++;
+
+        for (Long key : grams(name)) {
+            Postings postings = _postings.get(key);
+
+            if (postings == null)
+                continue;
+
+            postings.stale++;
+
+            if (postings.liveSize() == 0)
+                _postings.remove(key);
+            else if (postings.stale > postings.size / 2)
+                compact(postings);
+        }
+
+        _names[id] = null;
+        _entries[id] = null;
+        _count--;
+    }
+
+    @Override
+    public void onSeedFinished () {}
+
+    synchronized int size ()
+    {
+        return _count;
+    }
+
+    // Returns at most `limit` entries whose names contain the query, in no particular order.
+    List<DocumentTree.Entry> search (String query, int limit)
+    {
+        return search(query, limit, null);
+    }
+
+    // Same as above, restricted to entries under the top directories (null for all of them).
+    synchronized List<DocumentTree.Entry> search (String query, int limit, Set<DocumentTree.TopDir> topDirs)
+    {
+        List<DocumentTree.Entry> result = new ArrayList<DocumentTree.Entry>();
+        String q = normalize(query);
+
+        if (q.isEmpty() || limit <= 0)
+            return result;
+
+        if (q.length() < GRAM) {
+            for (int id = 0; id < _names.length && result.size() < limit; id++) {
+                if (_names[id] != null && _names[id].contains(q) && accepts(topDirs, _entries[id]))
+                    result.add(_entries[id]);
+            }
+
+            return result;
+        }
+
+        Postings shortest = null;
+
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            Postings postings = _postings.get(gram(q, i));
+
+            // Some gram never occurs: nothing matches
+            if (postings == null)
+                return result;
+
+            if (shortest == null || postings.liveSize() < shortest.liveSize())
+                shortest = postings;
+        }
+
+        for (int i = 0; i < shortest.size && result.size() < limit; i++) {
+            int id = shortest.ids[i];
+
+            if (isLive(shortest, i) && _names[id].contains(q) && accepts(topDirs, _entries[id]))
+                result.add(_entries[id]);
+        }
+
+        return result;
+    }
+
+    private static boolean accepts (Set<DocumentTree.TopDir> topDirs, DocumentTree.Entry entry)
+    {
+        return topDirs == null || topDirs.contains(entry.topDir);
+    }
+}
@@ -14,6 +14,7 @@ import android.content.ComponentName;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.ContextWrapper;
+import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
 import android.content.res.AssetFileDescriptor;
@@ -26,20 +27,34 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.CancellationSignal;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.ParcelFileDescriptor;
+import android.os.Process;
+import android.os.storage.StorageManager;
+import android.os.storage.StorageVolume;
 import android.provider.DocumentsContract;
 import android.provider.DocumentsProvider;
 import android.provider.DocumentsContract.Document;
 import android.provider.DocumentsContract.Root;
-import android.webkit.MimeTypeMap;
+import android.system.ErrnoException;
+import android.system.Os;
 
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import pfs.android.NonNull;
 import pfs.android.Say;
@@ -56,7 +71,7 @@ public class UnifiedContentProvider extends DocumentsProvider
         , Root.COLUMN_TITLE
         , Root.COLUMN_SUMMARY
         , Root.COLUMN_DOCUMENT_ID
-        //Root.COLUMN_AVAILABLE_BYTES
+        , Root.COLUMN_AVAILABLE_BYTES
     };
 
     // Use these as the default columns to return information about a document if no specific
@@ -95,6 +110,57 @@ public class UnifiedContentProvider extends DocumentsProvider
 
     private static final int DEFAULT_PROVIDER_ICON = 0;
 
+    // Maximum number of child document rows kept by the directory listing cache.
+    // Zero disables the cache.
+    private static final int DEFAULT_LISTING_CACHE_SIZE = 50000;
+
+    // Maximum number of directories cached (and watched) by the directory listing cache
+    private static final int DEFAULT_LISTING_CACHE_DIRS = 256;
+
+    // Maximum number of directories watched by the document tree, others are rescanned
+    // periodically. Watches are limited per user by fs.inotify.max_user_watches.
+    private static final int DEFAULT_TREE_WATCHES = 4096;
+
+    // Interval of rescans of directories beyond the watch budget in seconds
+    private static final int DEFAULT_TREE_RESCAN_INTERVAL = 60;
+
+    // Directories with more entries than this are listed by a lazily filled cursor
+    // instead of being materialized (and cached) in full.
+    private static final int DEFAULT_STREAMING_THRESHOLD = 2000;
+
+    // Maximum number of documents returned by a search
+    private static final int SEARCH_RESULT_LIMIT = 200;
+
+    // Number of documents shown in the "Recents" category
+    private static final int RECENT_DOCUMENTS_LIMIT = 64;
+
+    // Disk space for generated thumbnails in megabytes
+    private static final int DEFAULT_THUMBNAIL_CACHE_SIZE = 32;
+
+    // Number of files whose MIME type was detected by content, remembered by path
+    private static final int SNIFFED_MIME_CACHE_SIZE = 4096;
+
+    // Number of document IDs remembered with their resolved files
+    private static final int DOC_ID_CACHE_SIZE = 4096;
+
+    // Number of remembered chains of parent document IDs
+    private static final int ANCESTOR_CHAIN_CACHE_SIZE = 1024;
+
+    // Changes reported within this period (milliseconds) are notified at once
+    private static final long CHANGE_NOTIFICATION_DELAY = 250;
+
+    // Threads copying and deleting directory trees
+    private static final int DEFAULT_FILE_OPERATION_THREADS = 4;
+
+    // Roots published by the provider (`provider_roots` meta-data)
+    private static final String ROOTS_SINGLE   = "single";   // one root with all top directories
+    private static final String ROOTS_TOP_DIRS = "top_dirs"; // a root per top directory
+    private static final String ROOTS_VOLUMES  = "volumes";  // a root per storage volume
+    private static final String DEFAULT_PROVIDER_ROOTS = ROOTS_SINGLE;
+
+    // Period of available space sampling in seconds
+    private static final int DEFAULT_AVAILABLE_BYTES_INTERVAL = 30;
+
     private String _providerTitle = DEFAULT_PROVIDER_TITLE;
     private String _providerDesc = DEFAULT_PROVIDER_DESCRIPTION;
 
@@ -112,19 +178,112 @@ public class UnifiedContentProvider extends DocumentsProvider
 
         public int iconId;
 
-        public Options opts;
+        public Options opts = new Options();
+
+        // Same top directory in terms of DocumentTree
+        public DocumentTree.TopDir treeTopDir;
     }
 
     private ArrayList<TopDirCredentials> _topDirs = null;
 
+    private class RootCredentials
+    {
+        public String rootId;
+        public String documentId;
+        public String title;
+        public String summary;
+
+        // Root document is not a file system directory but a list of top directories
+        public boolean isVirtual;
+
+        // Any path at the file system of the root, for available space sampling
+        public File statPath;
+
+        public ArrayList<TopDirCredentials> topDirs = new ArrayList<TopDirCredentials>();
+
+        // Filter of DocumentTree entries for search and recents, null for the single root
+        public Set<DocumentTree.TopDir> treeTopDirs = null;
+    }
+
+    private String _rootsMode = DEFAULT_PROVIDER_ROOTS;
+    private ArrayList<RootCredentials> _roots = null;
+    private final HashMap<String, RootCredentials> _rootsById = new HashMap<String, RootCredentials>();
+    private final HashMap<String, RootCredentials> _rootsByDocId = new HashMap<String, RootCredentials>();
+
+    private StatFsSampler _statFsSampler = null;
+
+    // Canonical paths of top directories for resolving file paths into URIs, built on first
+    // use and dropped when top directories are determined again
+    private PathPrefixTrie<TopDirCredentials> _topDirTrie = null;
+
     // A file object at the root of the file hierarchy.  Depending on your implementation, the root
     // does not need to be an existing file system directory.  For example, a tag-based document
     // provider might return a directory containing all tags, represented as child directories.
     private File _baseDir;
 
-    private void logTrace (int level, String text)
+    // Document ID <-> file under the base directory
+    private DocIdMapper _docIdMapper = null;
+
+    private DirectoryListingCache _listingCache = null;
+
+    // Directories with more entries are served by DirectoryCursor
+    private int _streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+
+    private final DirectoryListingCache.RowFactory _rowBuilder = new DirectoryListingCache.RowFactory() {
+        @Override
+        public DocumentRow makeRow (File file, int attrs)
+        {
+            return buildRow(null, file, attrs);
+        }
+    };
+
+    // Model of all files under top directories, feeds the search index, recents and
+    // MIME type census
+    private DocumentTree _documentTree = null;
+    private final TrigramIndex _searchIndex = new TrigramIndex();
+    private RecentDocuments _recentDocuments = null;
+    private final MimeCensus _mimeCensus = new MimeCensus();
+
+    private final DocIdCache _docIdCache = new DocIdCache(DOC_ID_CACHE_SIZE);
+
+    // Parent chains for findDocumentPath()
+    private AncestorChains _ancestorChains = null;
+
+    // FileObservers of directories shared by the listing cache and the document tree
+    private final DirectoryWatcher _directoryWatcher = new DirectoryWatcher();
+
+    // Provider thread: close listeners of written documents, change notifications and
+    // refresh of cached listings
+    private HandlerThread _providerThread = null;
+    private Handler _providerHandler = null;
+    private ChangeNotifier _changeNotifier = null;
+
+    private String _authority = null;
+
+    // Copy, move and delete of documents
+    private FileOperations _fileOperations = null;
+
+    // Publish actual child MIME types of the root instead of "*/*". Opt-in: DocumentsUI also
+    // filters roots by these types for ACTION_CREATE_DOCUMENT, so a root without documents of
+    // the requested type could not receive the first one.
+    private boolean _exactMimeTypes = false;
+
+    private ThumbnailCache _thumbnailCache = null;
+
+    private final MimeResolver _mimeResolver = new MimeResolver(SNIFFED_MIME_CACHE_SIZE);
+
+    // Counters and latency histograms, see `Caller.METHOD_STATS` and `dump`
+    private final ProviderStats _stats = new ProviderStats();
+
+    // Deferred initialization, see onCreate()
+    private FutureTask<Void> _initTask = null;
+    private volatile boolean _initialized = false;
+
+    // Formats the message only if the trace level is enabled
+    private static void logTrace (int level, String format, Object... args)
     {
-        Say.t(level, "UnifiedContentProvider: " + text);
+        if (Say.isTraceEnabled(level))
+            Say.t(level, "UnifiedContentProvider: " + String.format(format, args));
     }
 
     private File baseDirByCode (String baseDirCode)
@@ -146,9 +305,27 @@ public class UnifiedContentProvider extends DocumentsProvider
         return filesDir;
     }
 
-    private void determineTopDirs (int arrayResId)
+    // `provider_top_dirs` is a string array resource or a string of newline separated records
+    // (for configurations generated at runtime, e.g. by the load test harness)
+    private String[] topDirRecords (Bundle bundle)
+    {
+        Object value = bundle.get("provider_top_dirs");
+
+        if (value instanceof String)
+            return ((String) value).split("\n");
+
+        try {
+            return getContext().getResources().getStringArray(bundle.getInt("provider_top_dirs"));
+        } catch (Resources.NotFoundException e) {
+            throw new RuntimeException("Expected 'provider_top_dirs' specified in AndroidManifest.xml for UnifiedContentProvider", e);
+        }
+    }
+
+    private void determineTopDirs (String[] topDirRecords)
     {
-        String[] topDirRecords = getContext().getResources().getStringArray(arrayResId);
+        synchronized (this) {
+            _topDirTrie = null;
+        }
 
         try {
             _topDirs = new ArrayList<TopDirCredentials>();
@@ -157,19 +334,11 @@ public class UnifiedContentProvider extends DocumentsProvider
                 TopDirCredentials topDirCredentials = new TopDirCredentials();
                 topDirCredentials.iconId = DEFAULT_PROVIDER_ICON; // FIXME
 
-                String[] cred = record.split(";");
-                String dir = cred[0];
-                topDirCredentials.displayName = cred.length > 1 ? cred[1] : cred[0];
-
-                // Options specified
-                if (cred.length > 2) {
-                    if (cred[2].contains("nosubdirs"))
-                        topDirCredentials.opts.nosubdirs = true;
-                }
-
-                // NOTE. Do not use getCanonicalFile() here. Need to save base directory prefix when
-                // top directory can be outside of base directory (started with `..`).
-                topDirCredentials.folder = new File(_baseDir + File.separator + dir).getAbsoluteFile();
+                TopDirRecord topDirRecord = TopDirRecord.parse(record);
+                String dir = topDirRecord.dir;
+                topDirCredentials.displayName = topDirRecord.displayName;
+                topDirCredentials.opts.nosubdirs = topDirRecord.nosubdirs;
+                topDirCredentials.folder = topDirRecord.folder(_baseDir);
 
                 if (!topDirCredentials.folder.exists()) {
                     Say.e(String.format("Folder not exists: %s, item ignored: %s"
@@ -185,20 +354,166 @@ public class UnifiedContentProvider extends DocumentsProvider
 
                 _topDirs.add(topDirCredentials);
 
-                logTrace(1, "Added top directory: " + topDirCredentials.folder.getCanonicalFile());
+                logTrace(1, "Added top directory: %s", topDirCredentials.folder.getCanonicalFile());
             }
-        } catch (Resources.NotFoundException e) {
-            throw new RuntimeException("Expected 'provider_top_dirs' specified in AndroidManifest.xml for UnifiedContentProvider", e);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private synchronized PathPrefixTrie<TopDirCredentials> topDirTrie () throws IOException
+    {
+        if (_topDirTrie == null) {
+            PathPrefixTrie<TopDirCredentials> trie = new PathPrefixTrie<TopDirCredentials>();
+
+            // Earlier top directories take precedence, as configured
+            for (TopDirCredentials cred: _topDirs)
+                trie.add(cred.folder.getCanonicalPath(), cred);
+
+            _topDirTrie = trie;
+        }
+
+        return _topDirTrie;
+    }
+
+    private void determineRoots ()
+    {
+        _roots = new ArrayList<RootCredentials>();
+
+        switch (_rootsMode) {
+            case ROOTS_TOP_DIRS:
+                for (TopDirCredentials cred: _topDirs) {
+                    RootCredentials root = new RootCredentials();
+                    root.rootId = getDocIdForFile(cred.folder);
+                    root.documentId = root.rootId;
+                    root.title = cred.displayName;
+                    root.summary = _providerTitle;
+                    root.isVirtual = false;
+                    root.statPath = cred.folder;
+                    root.topDirs.add(cred);
+                    _roots.add(root);
+                }
+                break;
+
+            case ROOTS_VOLUMES: {
+                LinkedHashMap<Long, RootCredentials> volumes = new LinkedHashMap<Long, RootCredentials>();
+
+                for (TopDirCredentials cred: _topDirs) {
+                    long device = deviceOf(cred.folder);
+                    RootCredentials root = volumes.get(device);
+
+                    if (root == null) {
+                        root = new RootCredentials();
+                        root.rootId = ROOT + "@" + Long.toHexString(device);
+                        root.documentId = root.rootId;
+                        root.title = volumeTitle(cred.folder);
+                        root.summary = _providerDesc;
+                        root.isVirtual = true;
+                        root.statPath = cred.folder;
+                        volumes.put(device, root);
+                    }
+
+                    root.topDirs.add(cred);
+                }
+
+                _roots.addAll(volumes.values());
+                break;
+            }
+
+            default: {
+                if (!ROOTS_SINGLE.equals(_rootsMode)) {
+                    Say.w(String.format("Bad roots mode: %s, use default: %s", _rootsMode, ROOTS_SINGLE));
+                    _rootsMode = ROOTS_SINGLE;
+                }
+
+                RootCredentials root = new RootCredentials();
+                root.rootId = ROOT;
+                root.documentId = ROOT;
+                root.title = _providerTitle;
+                root.summary = _providerDesc;
+                root.isVirtual = true;
+                root.statPath = _baseDir;
+                root.topDirs.addAll(_topDirs);
+                _roots.add(root);
+                break;
+            }
+        }
+
+        for (RootCredentials root: _roots) {
+            _rootsById.put(root.rootId, root);
+            _rootsByDocId.put(root.documentId, root);
+            logTrace(1, "Added root: %s (%d top directories)", root.rootId, root.topDirs.size());
+        }
+    }
+
+    // Identifier of the device containing the file, groups top directories into volumes
+    private static long deviceOf (File file)
+    {
+        try {
+            return Os.stat(file.getPath()).st_dev;
+        } catch (ErrnoException e) {
+            Say.w("Unable to stat " + file + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private String volumeTitle (File file)
+    {
+        StorageManager sm = getContext().getSystemService(StorageManager.class);
+        StorageVolume volume = sm != null ? sm.getStorageVolume(file) : null;
+
+        // No volume for private application directories
+        return volume != null ? volume.getDescription(getContext()) : _providerTitle;
+    }
+
+    // Root whose document is the list of its top directories, null if the document is other
+    private RootCredentials virtualRoot (String docId)
+    {
+        RootCredentials root = _rootsByDocId.get(docId);
+        return root != null && root.isVirtual ? root : null;
+    }
+
     @Override
     public boolean onCreate ()
     {
+        // Called on the main thread before Application.onCreate(), so nothing touching storage
+        // or package manager is done here. Initialization runs on a background warm-up thread
+        // and every entry point waits for it; an entry point called before the warm-up thread
+        // got to it runs it in place.
+        final long started = _stats.start();
+
+        _initTask = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run ()
+            {
+                initialize();
+            }
+        }, null);
+
+        Thread warmUp = new Thread(new Runnable() {
+            @Override
+            public void run ()
+            {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                _initTask.run();
+            }
+        }, "UnifiedContentProvider init");
+
+        warmUp.start();
+
+        _stats.recordCreate(started);
+        return true;
+    }
+
+    private void initialize ()
+    {
+        final long started = _stats.start();
         Bundle bundle;
 
+        _providerThread = new HandlerThread("UnifiedContentProvider");
+        _providerThread.start();
+        _providerHandler = new Handler(_providerThread.getLooper());
+
         try {
             Context ctx = getContext();
             PackageManager pm = ctx.getPackageManager();
@@ -214,6 +529,7 @@ public class UnifiedContentProvider extends DocumentsProvider
 //            }
             providerInfo = pm.getProviderInfo(providerName, PackageManager.GET_META_DATA);
 
+            _authority = providerInfo.authority;
             bundle = providerInfo.metaData;
             _providerTitle = bundle.getString("provider_title", DEFAULT_PROVIDER_TITLE);
             _providerDesc = bundle.getString("provider_description", DEFAULT_PROVIDER_DESCRIPTION);
@@ -221,12 +537,63 @@ public class UnifiedContentProvider extends DocumentsProvider
 
             String baseDirCode = bundle.getString("provider_base_dir", DEFAULT_PROVIDER_BASE_DIR);
             _baseDir = baseDirByCode(baseDirCode);
-            logTrace(1, "Base directory: " + _baseDir);
+            _docIdMapper = new DocIdMapper(ROOT, _baseDir);
+            logTrace(1, "Base directory: %s", _baseDir);
+
+            int listingCacheSize = bundle.getInt("provider_listing_cache_size", DEFAULT_LISTING_CACHE_SIZE);
+            int listingCacheDirs = bundle.getInt("provider_listing_cache_dirs", DEFAULT_LISTING_CACHE_DIRS);
+            _listingCache = new DirectoryListingCache(_directoryWatcher, _providerHandler
+                    , listingCacheSize, listingCacheDirs, new DirectoryListingCache.RowFactory() {
+                @Override
+                public DocumentRow makeRow (File file, int attrs)
+                {
+                    return buildRow(null, file, attrs, true);
+                }
+            });
+
+            _exactMimeTypes = bundle.getBoolean("provider_exact_mime_types", false);
+            _streamingThreshold = bundle.getInt("provider_streaming_threshold", DEFAULT_STREAMING_THRESHOLD);
+
+            int thumbnailCacheSize = bundle.getInt("provider_thumbnail_cache_size", DEFAULT_THUMBNAIL_CACHE_SIZE);
+            _thumbnailCache = new ThumbnailCache(new File(ctx.getCacheDir(), "thumbnails")
+                , thumbnailCacheSize * 1024L * 1024L);
+
+            _fileOperations = new FileOperations(bundle.getInt("provider_file_operation_threads"
+                , DEFAULT_FILE_OPERATION_THREADS));
+
+            _rootsMode = bundle.getString("provider_roots", DEFAULT_PROVIDER_ROOTS);
         } catch (PackageManager.NameNotFoundException e) {
             throw new RuntimeException(e);
         }
 
-        determineTopDirs(bundle.getInt("provider_top_dirs"));
+        determineTopDirs(topDirRecords(bundle));
+        determineRoots();
+
+        HashMap<String, String> topDirParents = new HashMap<String, String>();
+
+        for (RootCredentials root: _roots) {
+            for (TopDirCredentials cred: root.topDirs)
+                topDirParents.put(getDocIdForFile(cred.folder), root.isVirtual ? root.documentId : null);
+        }
+
+        _ancestorChains = new AncestorChains(topDirParents, ANCESTOR_CHAIN_CACHE_SIZE);
+
+        _changeNotifier = new ChangeNotifier(getContext().getContentResolver(), _providerHandler
+            , CHANGE_NOTIFICATION_DELAY);
+        startDocumentTree(bundle.getInt("provider_tree_watches", DEFAULT_TREE_WATCHES)
+            , bundle.getInt("provider_tree_rescan_interval", DEFAULT_TREE_RESCAN_INTERVAL) * 1000L);
+
+        ArrayList<File> statPaths = new ArrayList<File>();
+
+        for (RootCredentials root: _roots)
+            statPaths.add(root.statPath);
+
+        _statFsSampler = new StatFsSampler(statPaths, _providerHandler
+            , bundle.getInt("provider_available_bytes_interval", DEFAULT_AVAILABLE_BYTES_INTERVAL) * 1000L);
+        _statFsSampler.start();
+
+        _stats.recordInit(started);
+        _initialized = true;
 
         // Emulator output
 //        say.d("getFilesDir          : " + getContext().getFilesDir());             // /data/user/0/pfs.android.contentprovider/files
@@ -237,12 +604,101 @@ public class UnifiedContentProvider extends DocumentsProvider
 //        say.d("getObbDir()          : " + getContext().getObbDir());               // /storage/emulated/0/Android/obb/pfs.android.contentprovider
 //        say.d("getExternalCacheDir(): " + getContext().getExternalCacheDir());     // /storage/emulated/0/Android/data/pfs.android.contentprovider/cache
 //        say.d("getExternalFilesDir(): " + getContext().getExternalFilesDir(null)); // /storage/emulated/0/Android/data/pfs.android.contentprovider/files
+    }
 
-        return true;
+    private void awaitInit ()
+    {
+        if (_initialized)
+            return;
+
+        final long started = _stats.start();
+
+        try {
+            // Does nothing if the warm-up thread has already started it
+            _initTask.run();
+            _initTask.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("UnifiedContentProvider initialization failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for UnifiedContentProvider initialization", e);
+        } finally {
+            _stats.recordInitWait(started);
+        }
+    }
+
+    private void startDocumentTree (int maxWatches, long rescanInterval)
+    {
+        ArrayList<DocumentTree.TopDir> topDirs = new ArrayList<DocumentTree.TopDir>();
+
+        for (TopDirCredentials cred: _topDirs) {
+            cred.treeTopDir = new DocumentTree.TopDir(cred.folder, !cred.opts.nosubdirs);
+            topDirs.add(cred.treeTopDir);
+        }
+
+        // The single root contains everything, no need to filter
+        if (!ROOTS_SINGLE.equals(_rootsMode)) {
+            for (RootCredentials root: _roots) {
+                root.treeTopDirs = new HashSet<DocumentTree.TopDir>();
+
+                for (TopDirCredentials cred: root.topDirs)
+                    root.treeTopDirs.add(cred.treeTopDir);
+            }
+        }
+
+        _documentTree = new DocumentTree(topDirs, _mimeResolver, _directoryWatcher
+            , maxWatches, rescanInterval);
+        _recentDocuments = new RecentDocuments(_documentTree, RECENT_DOCUMENTS_LIMIT);
+        _documentTree.addListener(_searchIndex);
+        _documentTree.addListener(_recentDocuments);
+        _documentTree.addListener(_mimeCensus);
+        _documentTree.addListener(_docIdCache);
+        _documentTree.start();
+    }
+
+    @Override
+    public void shutdown ()
+    {
+        try {
+            awaitInit();
+        } catch (IllegalStateException e) {
+            // Nothing to release if initialization failed early
+        }
+
+        if (_documentTree != null)
+            _documentTree.shutdown();
+
+        if (_listingCache != null)
+            _listingCache.clear();
+
+        if (_statFsSampler != null)
+            _statFsSampler.stop();
+
+        if (_providerThread != null)
+            _providerThread.quitSafely();
+
+        if (_fileOperations != null)
+            _fileOperations.shutdown();
+
+        super.shutdown();
     }
 
     @Override
     public Cursor queryRoots (String[] projection)
+    {
+        awaitInit();
+
+        final long started = _stats.start();
+        Cursor result = null;
+
+        try {
+            return result = doQueryRoots(projection);
+        } finally {
+            _stats.record(ProviderStats.QUERY_ROOTS, started, rowCount(result), result == null);
+        }
+    }
+
+    private Cursor doQueryRoots (String[] projection)
     {
         // Create a cursor with either the requested fields, or the default projection.  This
         // cursor is returned to the Android system picker UI and used to display all roots from
@@ -251,124 +707,524 @@ public class UnifiedContentProvider extends DocumentsProvider
 
         // It's possible to have multiple roots (e.g. for multiple accounts in the same app) -
         // just add multiple cursor rows.
-        final MatrixCursor.RowBuilder row = result.newRow();
+        for (RootCredentials root: _roots) {
+            final MatrixCursor.RowBuilder row = result.newRow();
+
+            row.add(Root.COLUMN_ROOT_ID, root.rootId);
+
+            // COLUMN_TITLE is the root title (e.g. what will be displayed to identify your provider).
+            row.add(Root.COLUMN_TITLE, root.title);
+
+            // Set summary for output as provider description in providers list in dialog
+            row.add(Root.COLUMN_SUMMARY, root.summary);
+
+            // FLAG_SUPPORTS_CREATE means at least one directory under the root supports creating
+            // documents.  FLAG_SUPPORTS_RECENTS means your application's most recently used
+            // documents will show up in the "Recents" category.  FLAG_SUPPORTS_SEARCH allows users
+            // to search all documents the application shares. FLAG_SUPPORTS_IS_CHILD allows
+            // testing parent child relationships, available after SDK 21 (Lollipop).
+            if (SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+                row.add(Root.COLUMN_FLAGS, Root.FLAG_SUPPORTS_CREATE |
+                        Root.FLAG_SUPPORTS_RECENTS |
+                        Root.FLAG_SUPPORTS_SEARCH);
+            } else {
+                row.add(Root.COLUMN_FLAGS, Root.FLAG_SUPPORTS_CREATE |
+                        Root.FLAG_SUPPORTS_RECENTS |
+                        Root.FLAG_SUPPORTS_SEARCH |
+                        Root.FLAG_SUPPORTS_IS_CHILD);
+            }
+
+            // This document id must be unique within this provider and consistent across time.  The
+            // system picker UI may save it and refer to it later.
+            row.add(Root.COLUMN_DOCUMENT_ID, root.documentId);
+
+            // The child MIME types are used to filter the roots and only present to the user roots
+            // that contain the desired type somewhere in their file hierarchy.
+            row.add(Root.COLUMN_MIME_TYPES, getChildMimeTypes(root));
+
+            // Sampled in background, statfs is not called here
+            long availableBytes = _statFsSampler.availableBytes(root.statPath);
+
+            if (availableBytes != StatFsSampler.UNKNOWN)
+                row.add(Root.COLUMN_AVAILABLE_BYTES, availableBytes);
+
+            //row.add(Root.COLUMN_ICON, R.mipmap.ic_launcher);
+            //row.add(Root.COLUMN_ICON, android.R.drawable.ic_delete);
+            row.add(Root.COLUMN_ICON, _providerIcon);
+        }
+
+        logTrace(2, "queryRoots: result=%s", result);
+
+        return result;
+    }
+
+    @Override
+    public Cursor queryDocument (String documentId, String[] projection) throws FileNotFoundException
+    {
+        awaitInit();
+
+        final long started = _stats.start();
+        Cursor result = null;
+
+        try {
+            return result = doQueryDocument(documentId, projection);
+        } finally {
+            _stats.record(ProviderStats.QUERY_DOCUMENT, started, rowCount(result), result == null);
+        }
+    }
+
+    private Cursor doQueryDocument (String documentId, String[] projection) throws FileNotFoundException
+    {
+        logTrace(3, "queryDocument: documentId=%s", documentId);
+
+        // Create a cursor with the requested projection, or the default projection.
+        final ColumnPlan plan = ColumnPlan.of(resolveDocumentProjection(projection));
+        final MatrixCursor result = new MatrixCursor(plan.columns);
+        includeFile(result, plan, documentId, null);
+        result.setNotificationUri(getContext().getContentResolver()
+            , DocumentsContract.buildDocumentUri(_authority, documentId));
+        return result;
+    }
+
+    @Override
+    public Cursor queryChildDocuments (String parentDocumentId, String[] projection
+            , String sortOrder) throws FileNotFoundException
+    {
+        awaitInit();
+
+        final long started = _stats.start();
+        Cursor result = null;
+
+        try {
+            return result = doQueryChildDocuments(parentDocumentId, projection, sortOrder);
+        } finally {
+            _stats.record(ProviderStats.QUERY_CHILD_DOCUMENTS, started, rowCount(result), result == null);
+        }
+    }
+
+    private Cursor doQueryChildDocuments (String parentDocumentId, String[] projection
+            , String sortOrder) throws FileNotFoundException
+    {
+        logTrace(3, "queryChildDocuments: parentDocumentId=%s, sortOrder=%s"
+            , parentDocumentId, sortOrder);
+
+        final ColumnPlan plan = ColumnPlan.of(resolveDocumentProjection(projection));
+        final File parent = getFileForDocId(parentDocumentId);
+        final Cursor result;
+
+        final RootCredentials root = virtualRoot(parentDocumentId);
+
+        //if (parentDocumentId.equals(getDocIdForFile(_baseDir))) {
+        if (root != null) {
+            final MatrixCursor topDirs = new MatrixCursor(plan.columns);
+            includeTopDirs(topDirs, plan, root.topDirs);
+            result = topDirs;
+        } else {
+            result = queryChildren(plan, parent);
+        }
+
+        // Notified when a document written by a client is closed
+        result.setNotificationUri(getContext().getContentResolver()
+            , DocumentsContract.buildChildDocumentsUri(_authority, parentDocumentId));
+        return result;
+    }
+
+    private Cursor queryChildren (ColumnPlan plan, File parent) throws FileNotFoundException
+    {
+        List<DocumentRow> rows = _listingCache.isEnabled() ? _listingCache.get(parent, plan.needs) : null;
+
+        if (rows != null) {
+            logTrace(3, "queryChildren: served from cache: %s", parent);
+        } else {
+            DirectoryListingCache.Listing listing = _listingCache.isEnabled()
+                ? _listingCache.prepare(parent, plan.needs) : null;
+
+            String[] names = DirectoryCursor.listNames(parent);
+
+            if (names == null) {
+                if (listing != null)
+                    _listingCache.abandon(listing);
+
+                throw new FileNotFoundException("Unable to list directory: " + parent);
+            }
+
+            // Huge directory: build rows lazily as the client scrolls
+            if (names.length > _streamingThreshold) {
+                if (listing != null)
+                    _listingCache.abandon(listing);
+
+                logTrace(2, "queryChildren: streaming %d entries: %s", names.length, parent);
+                return new DirectoryCursor(plan, parent, names, _rowBuilder);
+            }
+
+            rows = new ArrayList<DocumentRow>(names.length);
+
+            for (String name: names)
+                rows.add(buildRow(null, new File(parent, name), plan.needs));
+
+            if (listing != null)
+                _listingCache.commit(listing, rows, names);
+        }
+
+        final MatrixCursor result = new MatrixCursor(plan.columns, rows.size());
+
+        for (DocumentRow row: rows)
+            row.addTo(result, plan);
+
+        return result;
+    }
 
-        row.add(Root.COLUMN_ROOT_ID, ROOT);
+    @Override
+    public Cursor querySearchDocuments (String rootId, String query, String[] projection)
+        throws FileNotFoundException
+    {
+        awaitInit();
+
+        logTrace(3, "querySearchDocuments: rootId=%s, query=%s", rootId, query);
+
+        final ColumnPlan plan = ColumnPlan.of(resolveDocumentProjection(projection));
+        final MatrixCursor result = new MatrixCursor(plan.columns);
+
+        final RootCredentials root = requireRoot(rootId);
+
+        for (DocumentTree.Entry entry: _searchIndex.search(query, SEARCH_RESULT_LIMIT, root.treeTopDirs))
+            buildRow(null, entry.file, plan.needs).addTo(result, plan);
+
+        markLoading(result);
+        return result;
+    }
+
+    @Override
+    public Cursor queryRecentDocuments (String rootId, String[] projection)
+        throws FileNotFoundException
+    {
+        awaitInit();
+
+        logTrace(3, "queryRecentDocuments: rootId=%s", rootId);
+
+        final ColumnPlan plan = ColumnPlan.of(resolveDocumentProjection(projection));
+        final MatrixCursor result = new MatrixCursor(plan.columns);
+
+        final RootCredentials root = requireRoot(rootId);
+
+        for (DocumentTree.Entry entry: _recentDocuments.snapshot(root.treeTopDirs))
+            buildRow(null, entry.file, plan.needs).addTo(result, plan);
+
+        markLoading(result);
+        return result;
+    }
+
+    private RootCredentials requireRoot (String rootId) throws FileNotFoundException
+    {
+        RootCredentials root = _rootsById.get(rootId);
+
+        if (root == null)
+            throw new FileNotFoundException("Unknown root: " + rootId);
+
+        return root;
+    }
+
+    // Let the picker know more results may come while the initial walk is in progress
+    private void markLoading (MatrixCursor result)
+    {
+        if (!_documentTree.isSeeded()) {
+            Bundle extras = new Bundle();
+            extras.putBoolean(DocumentsContract.EXTRA_LOADING, true);
+            result.setExtras(extras);
+        }
+    }
+
+    @Override
+    public ParcelFileDescriptor openDocument (final String documentId
+            , final String mode, CancellationSignal signal) throws FileNotFoundException
+    {
+        awaitInit();
+
+        final long started = _stats.start();
+        ParcelFileDescriptor result = null;
 
-        // COLUMN_TITLE is the root title (e.g. what will be displayed to identify your provider).
-        row.add(Root.COLUMN_TITLE, _providerTitle);
+        try {
+            result = doOpenDocument(documentId, mode, signal);
+            _stats.addBytesOpened(result.getStatSize());
+            return result;
+        } finally {
+            _stats.record(ProviderStats.OPEN_DOCUMENT, started, 0, result == null);
+        }
+    }
+
+    private ParcelFileDescriptor doOpenDocument (final String documentId
+            , final String mode, CancellationSignal signal) throws FileNotFoundException
+    {
+        // It's OK to do network operations in this method to download the document, as long as you
+        // periodically check the CancellationSignal.  If you have an extremely large file to
+        // transfer from the network, a better solution may be pipes or sockets
+        // (see ParcelFileDescriptor for helper methods).
+
+        final File file = getFileForDocId(documentId);
+        final int accessMode = ParcelFileDescriptor.parseMode(mode);
 
-        // Set summary for output as provider description in providers list in dialog
-        row.add(Root.COLUMN_SUMMARY, _providerDesc);
+        final boolean isWrite = (mode.indexOf('w') != -1);
 
-        // FLAG_SUPPORTS_CREATE means at least one directory under the root supports creating
-        // documents.  FLAG_SUPPORTS_RECENTS means your application's most recently used
-        // documents will show up in the "Recents" category.  FLAG_SUPPORTS_SEARCH allows users
-        // to search all documents the application shares. FLAG_SUPPORTS_IS_CHILD allows
-        // testing parent child relationships, available after SDK 21 (Lollipop).
-        if (SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
-            row.add(Root.COLUMN_FLAGS, Root.FLAG_SUPPORTS_CREATE |
-                    Root.FLAG_SUPPORTS_RECENTS |
-                    Root.FLAG_SUPPORTS_SEARCH);
+        if (isWrite) {
+            // Attach a close listener if the document is opened in write mode.
+            // It is called on the provider thread, not on the main one.
+            try {
+                return ParcelFileDescriptor.open(file, accessMode, _providerHandler,
+                        new ParcelFileDescriptor.OnCloseListener() {
+                            @Override
+                            public void onClose (IOException e)
+                            {
+                                onDocumentWritten(documentId, file);
+                            }
+                        });
+            } catch (IOException e) {
+                throw new FileNotFoundException(String.format("Failed to open document with id %s"
+                    + " and mode '%s'", documentId, mode));
+            }
         } else {
-            row.add(Root.COLUMN_FLAGS, Root.FLAG_SUPPORTS_CREATE |
-                    Root.FLAG_SUPPORTS_RECENTS |
-                    Root.FLAG_SUPPORTS_SEARCH |
-                    Root.FLAG_SUPPORTS_IS_CHILD);
+            return ParcelFileDescriptor.open(file, accessMode);
+        }
+    }
+
+    // Called on the provider thread when a document opened for writing is closed
+    private void onDocumentWritten (String documentId, File file)
+    {
+        logTrace(3, "onDocumentWritten: documentId=%s", documentId);
+
+        // Do not wait for the file observers, the client may requery right after notification
+        _docIdCache.invalidate(file);
+
+        File parent = file.getParentFile();
+
+        if (parent != null)
+            _listingCache.invalidate(parent);
+
+        _statFsSampler.refresh();
+        notifyDocumentChanged(documentId);
+    }
+
+    // Notifies observers of the document and of its parent's children, debounced
+    private void notifyDocumentChanged (String documentId)
+    {
+        _changeNotifier.notifyChange(DocumentsContract.buildDocumentUri(_authority, documentId));
+
+        String parentDocumentId = _ancestorChains.parent(documentId);
+
+        if (parentDocumentId != null) {
+            _changeNotifier.notifyChange(DocumentsContract.buildChildDocumentsUri(_authority
+                , parentDocumentId));
+        }
+    }
+
+    @Override
+    public AssetFileDescriptor openDocumentThumbnail (String documentId, Point sizeHint
+        , CancellationSignal signal) throws FileNotFoundException
+    {
+        awaitInit();
+
+        final long started = _stats.start();
+        AssetFileDescriptor result = null;
+
+        try {
+            result = doOpenDocumentThumbnail(documentId, sizeHint, signal);
+            _stats.addBytesOpened(result.getParcelFileDescriptor().getStatSize());
+            return result;
+        } finally {
+            _stats.record(ProviderStats.OPEN_DOCUMENT_THUMBNAIL, started, 0, result == null);
+        }
+    }
+
+    private AssetFileDescriptor doOpenDocumentThumbnail (String documentId, Point sizeHint
+        , CancellationSignal signal) throws FileNotFoundException
+    {
+        final File file = getFileForDocId(documentId);
+        File thumb;
+
+        try {
+            thumb = _thumbnailCache.get(file, sizeHint, signal);
+        } catch (FileNotFoundException e) {
+            // Not decodable by BitmapFactory, let the client try the original
+            logTrace(2, "openDocumentThumbnail: %s", e.getMessage());
+            thumb = file;
+        }
+
+        ParcelFileDescriptor pfd;
+
+        try {
+            pfd = ParcelFileDescriptor.open(thumb, ParcelFileDescriptor.MODE_READ_ONLY);
+        } catch (FileNotFoundException e) {
+            // Evicted by a concurrent request in the meantime
+            pfd = ParcelFileDescriptor.open(_thumbnailCache.get(file, sizeHint, signal)
+                , ParcelFileDescriptor.MODE_READ_ONLY);
+        }
+
+        return new AssetFileDescriptor(pfd, 0, AssetFileDescriptor.UNKNOWN_LENGTH);
+    }
+
+    @Override
+    public String createDocument (String parentDocumentId, String mimeType, String displayName)
+        throws FileNotFoundException
+    {
+        awaitInit();
+
+        logTrace(3, "createDocument: parentDocumentId=%s, mimeType=%s, displayName=%s"
+            , parentDocumentId, mimeType, displayName);
+
+        final File parent = getFileForMutableDocId(parentDocumentId, true);
+        final File file;
+
+        try {
+            file = FileOperations.uniqueFile(parent, mimeType, displayName);
+
+            if (Document.MIME_TYPE_DIR.equals(mimeType))
+                Files.createDirectory(file.toPath());
+            else
+                Files.createFile(file.toPath());
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to create document '%s' in %s"
+                , displayName, parent), e);
+        }
+
+        final String documentId = getDocIdForFile(file);
+        onDocumentChanged(documentId, file);
+        return documentId;
+    }
+
+    @Override
+    public String renameDocument (String documentId, String displayName) throws FileNotFoundException
+    {
+        awaitInit();
+
+        logTrace(3, "renameDocument: documentId=%s, displayName=%s"
+            , documentId, displayName);
+
+        final File file = getFileForMutableDocId(documentId, false);
+
+        if (file.getName().equals(displayName))
+            return null;
+
+        final File target;
+
+        try {
+            target = FileOperations.uniqueFile(file.getParentFile(), null, displayName);
+            Files.move(file.toPath(), target.toPath());
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to rename document %s to '%s'"
+                , documentId, displayName), e);
         }
 
-        // This document id must be unique within this provider and consistent across time.  The
-        // system picker UI may save it and refer to it later.
-        row.add(Root.COLUMN_DOCUMENT_ID, ROOT);
+        final String targetDocumentId = getDocIdForFile(target);
+        onDocumentChanged(documentId, file);
+        onDocumentChanged(targetDocumentId, target);
+        return targetDocumentId;
+    }
+
+    @Override
+    public void deleteDocument (String documentId) throws FileNotFoundException
+    {
+        awaitInit();
+
+        logTrace(3, "deleteDocument: documentId=%s", documentId);
+
+        final File file = getFileForMutableDocId(documentId, false);
+
+        try {
+            _fileOperations.delete(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to delete document " + documentId, e);
+        } finally {
+            // Part of a tree may be deleted on failure
+            onDocumentChanged(documentId, file);
+        }
+    }
+
+    @Override
+    public void removeDocument (String documentId, String parentDocumentId)
+        throws FileNotFoundException
+    {
+        awaitInit();
+
+        // A document has a single parent, removing it from the parent deletes it
+        requireParent(documentId, parentDocumentId);
+        deleteDocument(documentId);
+    }
 
-        // The child MIME types are used to filter the roots and only present to the user roots
-        // that contain the desired type somewhere in their file hierarchy.
-        row.add(Root.COLUMN_MIME_TYPES, getChildMimeTypes(_baseDir));
+    @Override
+    public String copyDocument (String sourceDocumentId, String targetParentDocumentId)
+        throws FileNotFoundException
+    {
+        awaitInit();
 
-        //row.add(Root.COLUMN_AVAILABLE_BYTES, _baseDir.getFreeSpace());
+        logTrace(3, "copyDocument: sourceDocumentId=%s, targetParentDocumentId=%s"
+            , sourceDocumentId, targetParentDocumentId);
 
-        //row.add(Root.COLUMN_ICON, R.mipmap.ic_launcher);
-        //row.add(Root.COLUMN_ICON, android.R.drawable.ic_delete);
-        row.add(Root.COLUMN_ICON, _providerIcon);
+        final File source = getFileForMutableDocId(sourceDocumentId, true);
+        final File targetParent = getFileForMutableDocId(targetParentDocumentId, true);
+        final File target;
 
-        logTrace(2, "queryRoots: result=" + result);
+        try {
+            target = FileOperations.uniqueFile(targetParent, null, source.getName());
+            _fileOperations.copy(source, target);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to copy document %s to %s"
+                , sourceDocumentId, targetParentDocumentId), e);
+        }
 
-        return result;
+        final String targetDocumentId = getDocIdForFile(target);
+        onDocumentChanged(targetDocumentId, target);
+        return targetDocumentId;
     }
 
     @Override
-    public Cursor queryDocument (String documentId, String[] projection) throws FileNotFoundException
+    public String moveDocument (String sourceDocumentId, String sourceParentDocumentId
+        , String targetParentDocumentId) throws FileNotFoundException
     {
-        logTrace(3, String.format("queryDocument: documentId=%s", documentId));
+        awaitInit();
 
-        // Create a cursor with the requested projection, or the default projection.
-        final MatrixCursor result = new MatrixCursor(resolveDocumentProjection(projection));
-        includeFile(result, documentId, null);
-        return result;
-    }
+        logTrace(3, "moveDocument: sourceDocumentId=%s, targetParentDocumentId=%s"
+            , sourceDocumentId, targetParentDocumentId);
 
-    @Override
-    public Cursor queryChildDocuments (String parentDocumentId, String[] projection
-            , String sortOrder) throws FileNotFoundException
-    {
-        logTrace(3, String.format("queryChildDocuments: parentDocumentId=%s, sortOrder=%s"
-            , parentDocumentId, sortOrder));
+        requireParent(sourceDocumentId, sourceParentDocumentId);
 
-        final MatrixCursor result = new MatrixCursor(resolveDocumentProjection(projection));
-        final File parent = getFileForDocId(parentDocumentId);
+        final File source = getFileForMutableDocId(sourceDocumentId, false);
+        final File targetParent = getFileForMutableDocId(targetParentDocumentId, true);
+        final File target;
 
-        //if (parentDocumentId.equals(getDocIdForFile(_baseDir))) {
-        if (parentDocumentId.equals(ROOT)) {
-            includeTopDirs(result);
-        } else {
-            for (File file: parent.listFiles()) {
-                includeFile(result, null, file);
-            }
+        try {
+            target = FileOperations.uniqueFile(targetParent, null, source.getName());
+            _fileOperations.move(source, target);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to move document %s to %s"
+                , sourceDocumentId, targetParentDocumentId), e);
+        } finally {
+            onDocumentChanged(sourceDocumentId, source);
         }
 
-        return result;
+        final String targetDocumentId = getDocIdForFile(target);
+        onDocumentChanged(targetDocumentId, target);
+        return targetDocumentId;
     }
 
-    @Override
-    public ParcelFileDescriptor openDocument (final String documentId
-            , final String mode, CancellationSignal signal) throws FileNotFoundException
+    // Drops cached state of the file (and of everything under it) and notifies observers
+    private void onDocumentChanged (String documentId, File file)
     {
-        // It's OK to do network operations in this method to download the document, as long as you
-        // periodically check the CancellationSignal.  If you have an extremely large file to
-        // transfer from the network, a better solution may be pipes or sockets
-        // (see ParcelFileDescriptor for helper methods).
+        _docIdCache.invalidateTree(file);
+        _listingCache.invalidateTree(file);
 
-        final File file = getFileForDocId(documentId);
-        final int accessMode = ParcelFileDescriptor.parseMode(mode);
+        File parent = file.getParentFile();
 
-        final boolean isWrite = (mode.indexOf('w') != -1);
+        if (parent != null)
+            _listingCache.invalidate(parent);
 
-        if (isWrite) {
-            // Attach a close listener if the document is opened in write mode.
-            try {
-                Handler handler = new Handler(getContext().getMainLooper());
-                return ParcelFileDescriptor.open(file, accessMode, handler,
-                        new ParcelFileDescriptor.OnCloseListener() {
-                            @Override
-                            public void onClose(IOException e) {}
-                        });
-            } catch (IOException e) {
-                throw new FileNotFoundException(String.format("Failed to open document with id %s"
-                    , " and mode '%s'", documentId, mode));
-            }
-        } else {
-            return ParcelFileDescriptor.open(file, accessMode);
-        }
+        _statFsSampler.refresh();
+        notifyDocumentChanged(documentId);
     }
 
-    @Override
-    public AssetFileDescriptor openDocumentThumbnail (String documentId, Point sizeHint
-        , CancellationSignal signal) throws FileNotFoundException
+    private void requireParent (String documentId, String parentDocumentId)
+        throws FileNotFoundException
     {
-        final File file = getFileForDocId(documentId);
-        final ParcelFileDescriptor pfd =
-                ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
-        return new AssetFileDescriptor(pfd, 0, AssetFileDescriptor.UNKNOWN_LENGTH);
+        if (!parentDocumentId.equals(_ancestorChains.parent(documentId)))
+            throw new FileNotFoundException(documentId + " is not a child of " + parentDocumentId);
     }
 
     public boolean isChildFile (File parentFile, File childFile)
@@ -380,10 +1236,16 @@ public class UnifiedContentProvider extends DocumentsProvider
     @Override
     public boolean isChildDocument (String parentDocumentId, String documentId)
     {
+        awaitInit();
+
         try {
-            File parentFile = getFileForDocId(parentDocumentId);
-            File childFile = getFileForDocId(documentId);
-            return isChildFile(parentFile, childFile);
+            // Check existence of the document (ancestors exist if it does)
+            getFileForDocId(documentId);
+
+            // Any descendant is a child in terms of FLAG_SUPPORTS_IS_CHILD, IDs with `.` or `..`
+            // segments have no chain
+            List<String> path = _ancestorChains.chain(documentId);
+            return path != null && path.indexOf(parentDocumentId) >= 0;
         } catch (FileNotFoundException e) {
             Say.e("FileNotFound in isChildDocument: " + e.getMessage());
             e.printStackTrace();
@@ -391,37 +1253,40 @@ public class UnifiedContentProvider extends DocumentsProvider
         return false;
     }
 
-    // Required API 26
-    // TODO Uncomment when minimal SDK version will be 26
-//    @Override
-//    public DocumentsContract.Path findDocumentPath (String parentDocumentId, String childDocumentId)
-//        throws FileNotFoundException
-//    {
-//        Say.d(String.format("FIND DOCUMENT: parentDocumentId=%s, childDocumentId=%s"
-//            , parentDocumentId, childDocumentId));
-//
-//        if (parentDocumentId == null)
-//            parentDocumentId = ROOT;
-//
-//        final File parent = getFileForDocId(parentDocumentId);
-//        File doc = getFileForDocId(childDocumentId);
-//        final String rootId = parentDocumentId;
-//
-//        if (!doc.exists())
-//            throw new FileNotFoundException(doc + " is not found.");
-//
-//        if (!isChildFile(parent, doc))
-//            throw new FileNotFoundException(doc + " is not found under " + parent);
-//
-//        LinkedList<String> path = new LinkedList<>();
-//
-//        while (doc != null && isChildFile(parent, doc)) {
-//            path.addFirst(getDocIdForFile(doc));
-//            doc = doc.getParentFile();
-//        }
-//
-//        return new DocumentsContract.Path(rootId, path);
-//    }
+    @Override
+    public DocumentsContract.Path findDocumentPath (String parentDocumentId, String childDocumentId)
+        throws FileNotFoundException
+    {
+        awaitInit();
+
+        logTrace(3, "findDocumentPath: parentDocumentId=%s, childDocumentId=%s"
+            , parentDocumentId, childDocumentId);
+
+        // Check existence of the document (ancestors exist if it does)
+        getFileForDocId(childDocumentId);
+
+        List<String> path = _ancestorChains.chain(childDocumentId);
+
+        if (path == null)
+            throw new FileNotFoundException(childDocumentId + " is not under any top directory");
+
+        // Path from the root document, root ID must be specified
+        if (parentDocumentId == null) {
+            RootCredentials root = _rootsByDocId.get(path.get(0));
+
+            if (root == null)
+                throw new FileNotFoundException(childDocumentId + " is not under any root");
+
+            return new DocumentsContract.Path(root.rootId, path);
+        }
+
+        int parentIndex = path.indexOf(parentDocumentId);
+
+        if (parentIndex < 0)
+            throw new FileNotFoundException(childDocumentId + " is not found under " + parentDocumentId);
+
+        return new DocumentsContract.Path(null, path.subList(parentIndex, path.size()));
+    }
 
     /**
      * @param projection the requested root column projection
@@ -439,152 +1304,206 @@ public class UnifiedContentProvider extends DocumentsProvider
     }
 
     /**
-     * Get a file's MIME type
+     * Gets a string of unique MIME data types of documents under the root, separated by newlines.
+     * The list is maintained by the background census. It matches any type until the census is
+     * complete or unless exact types are enabled by `provider_exact_mime_types` meta-data.
      *
-     * @param file the File object whose type we want
-     * @return the MIME type of the file
+     * @param root the root
+     * @return a string of the unique MIME data types the root contains
      */
-    private static String getTypeForFile (File file)
+    private String getChildMimeTypes (RootCredentials root)
     {
-        if (file.isDirectory()) {
-            return Document.MIME_TYPE_DIR;
-        } else {
-            return getTypeForName(file.getName());
-        }
+        if (!_exactMimeTypes)
+            return MimeCensus.ANY_MIME_TYPES;
+
+        // The root always contains directories, keep it available for picking a folder
+        return Document.MIME_TYPE_DIR + "\n" + (root.treeTopDirs == null
+            ? _mimeCensus.childMimeTypes()
+            : _mimeCensus.childMimeTypes(root.treeTopDirs));
     }
 
     /**
-     * Get the MIME data type of a document, given its filename.
+     * Get the document ID given a File.  The document id must be consistent across time.  Other
+     * applications may save the ID and use it to reference documents later.
+     * <p/>
+     * This implementation is specific to this demo.  It assumes only one root and is built
+     * directly from the file structure.  However, it is possible for a document to be a child of
+     * multiple directories (for example "android" and "images"), in which case the file must have
+     * the same consistent, unique document ID in both cases.
      *
-     * @param name the filename of the document
-     * @return the MIME data type of a document
+     * @param file the File whose document ID you want
+     * @return the corresponding document ID
      */
-    private static String getTypeForName (String name)
+    private String getDocIdForFile (File file)
     {
-        final int lastDot = name.lastIndexOf('.');
+        logTrace(3, "getDocIdForFile: file=%s", file);
 
-        if (lastDot >= 0) {
-            final String extension = name.substring(lastDot + 1);
-            final String mime = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension);
+        return _docIdMapper.docIdForFile(file);
+    }
 
-            if (mime != null)
-                return mime;
+    private void includeTopDirs (MatrixCursor result, ColumnPlan plan, List<TopDirCredentials> topDirs)
+    {
+        for (TopDirCredentials cred: topDirs) {
+            DocumentRow row = buildRow(null, cred.folder, plan.needs);
+            row.displayName = cred.displayName;
+            row.mimeType = Document.MIME_TYPE_DIR;
+            row.iconId = cred.iconId;
+
+            // Top directories are configured, they can not be renamed, moved or deleted
+            row.flags &= Document.FLAG_DIR_SUPPORTS_CREATE;
+            row.addTo(result, plan);
         }
-
-        return "application/octet-stream";
     }
 
     /**
-     * Gets a string of unique MIME data types a directory supports, separated by newlines.  This
-     * should not change.
+     * Add a representation of a file to a cursor.
      *
-     * @param parent the File for the parent directory
-     * @return a string of the unique MIME data types the parent directory supports
+     * @param result the cursor to modify
+     * @param plan   the compiled projection of the cursor
+     * @param docId  the document ID representing the desired file (may be null if given file)
+     * @param file   the File object representing the desired file (may be null if given docID)
+     * @throws FileNotFoundException
      */
-    private String getChildMimeTypes (File parent)
+    private void includeFile (MatrixCursor result, ColumnPlan plan, String docId, File file)
+            throws FileNotFoundException
     {
-        Set<String> mimeTypes = new HashSet<String>();
-        mimeTypes.add("*/*");
-        //mimeTypes.add("image/*");
-        //mimeTypes.add("text/*");
-        //mimeTypes.add("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
-
-        // Flatten the list into a string and insert newlines between the MIME type strings.
-        StringBuilder mimeTypesString = new StringBuilder();
-
-        for (String mimeType : mimeTypes)
-            mimeTypesString.append(mimeType).append("\n");
+        logTrace(3, "includeFile: docId=%s, file:%s", docId, file);
 
-        return mimeTypesString.toString();
+        buildFileRow(docId, file, plan.needs).addTo(result, plan);
     }
 
     /**
-     * Get the document ID given a File.  The document id must be consistent across time.  Other
-     * applications may save the ID and use it to reference documents later.
-     * <p/>
-     * This implementation is specific to this demo.  It assumes only one root and is built
-     * directly from the file structure.  However, it is possible for a document to be a child of
-     * multiple directories (for example "android" and "images"), in which case the file must have
-     * the same consistent, unique document ID in both cases.
+     * Build a representation of a document given by ID or by file.
      *
-     * @param file the File whose document ID you want
-     * @return the corresponding document ID
+     * @param docId the document ID representing the desired file (may be null if given file)
+     * @param file  the File object representing the desired file (may be null if given docID)
+     * @param attrs the attributes to compute (ColumnPlan.NEED_*)
+     * @return the row describing the document
+     * @throws FileNotFoundException
      */
-    private String getDocIdForFile (File file)
+    private DocumentRow buildFileRow (String docId, File file, int attrs) throws FileNotFoundException
     {
-        String path = file.getAbsolutePath();
-
-        logTrace(3, String.format("getDocIdForFile: file=%s, path=%s", file, path));
+        BasicFileAttributes stat = null;
+        RootCredentials root = null;
+
+        if (docId != null) {
+            root = virtualRoot(docId);
+
+            if (root != null) {
+                file = _baseDir;
+            } else {
+                // Attributes from the existence check spare another stat
+                DocIdCache.Resolved resolved = resolveDocId(docId);
+                file = resolved.file;
+                stat = resolved.attrs;
+            }
+        }
 
-        // Start at first char of path under root
-        final String rootPath = _baseDir.getPath();
+        DocumentRow row = buildRow(docId, file, attrs, false, stat);
 
-        if (rootPath.equals(path)) {
-            path = "";
-        } else if (rootPath.endsWith("/")) {
-            path = path.substring(rootPath.length());
-        } else {
-            path = path.substring(rootPath.length() + 1);
+        if (root != null) {
+            // Not a file system directory, nothing can be created there
+            row.displayName = root.title;
+            row.mimeType = Document.MIME_TYPE_DIR;
+            row.flags = 0;
+        } else if (_ancestorChains.isTopDir(row.docId)) {
+            // Top directories are configured, they can not be renamed, moved or deleted
+            row.flags &= Document.FLAG_DIR_SUPPORTS_CREATE;
         }
 
-        return ROOT + ':' + path;
+        return row;
     }
 
-    private void includeTopDirs (MatrixCursor result)
+    private DocumentRow buildRow (String docId, File file, int attrs)
     {
-        for (TopDirCredentials cred: _topDirs) {
-            String docId = getDocIdForFile(cred.folder);
-            int flags = 0;
-
-            // Add FLAG_DIR_SUPPORTS_CREATE if the file is a writable directory.
-            if (cred.folder.isDirectory() && cred.folder.canWrite())
-                flags |= Document.FLAG_DIR_SUPPORTS_CREATE;
+        return buildRow(docId, file, attrs, false, null);
+    }
 
-            final MatrixCursor.RowBuilder row = result.newRow();
-            row.add(Document.COLUMN_DOCUMENT_ID, docId);
-            row.add(Document.COLUMN_DISPLAY_NAME, cred.displayName);
-            row.add(Document.COLUMN_SIZE, cred.folder.length());
-            row.add(Document.COLUMN_MIME_TYPE, Document.MIME_TYPE_DIR);
-            row.add(Document.COLUMN_LAST_MODIFIED, cred.folder.lastModified());
-            row.add(Document.COLUMN_FLAGS, flags);
-            row.add(Document.COLUMN_ICON, cred.iconId);
-        }
+    private DocumentRow buildRow (String docId, File file, int attrs, boolean mustExist)
+    {
+        return buildRow(docId, file, attrs, mustExist, null);
     }
 
     /**
-     * Add a representation of a file to a cursor.
+     * Build a representation of a file. Only attributes requested by `attrs` are computed,
+     * all of them come from a single stat call.
      *
-     * @param result the cursor to modify
-     * @param docId  the document ID representing the desired file (may be null if given file)
-     * @param file   the File object representing the desired file (may be null if given docID)
-     * @throws FileNotFoundException
+     * @param docId     the document ID representing the file (may be null)
+     * @param file      the File object representing the file
+     * @param attrs     the attributes to compute (ColumnPlan.NEED_*)
+     * @param mustExist return null instead of a row of zero attributes if file does not exist
+     * @param stat      already known attributes of the file (may be null)
+     * @return the row describing the file
      */
-    private void includeFile (MatrixCursor result, String docId, File file)
-            throws FileNotFoundException
+    private DocumentRow buildRow (String docId, File file, int attrs, boolean mustExist
+        , BasicFileAttributes stat)
     {
-        logTrace(3, String.format("includeFile: docId=%s, file:%s", docId, file));
-
-        if (docId == null) {
+        if (docId == null)
             docId = getDocIdForFile(file);
-        } else {
-            file = getFileForDocId(docId);
+
+        DocumentRow row = new DocumentRow();
+        row.docId = docId;
+        row.displayName = file.getName();
+        row.attrs = attrs;
+
+        if (mustExist)
+            attrs |= ColumnPlan.NEED_STAT;
+
+        if (attrs == 0)
+            return row;
+
+        boolean isDirectory = false;
+
+        try {
+            if (stat == null)
+                stat = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+
+            isDirectory = stat.isDirectory();
+            row.size = stat.size();
+            row.lastModified = stat.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            // Same as File.length() and File.lastModified() for a missing file
+            if (mustExist)
+                return null;
+        }
+
+        if ((attrs & ColumnPlan.NEED_MIME) != 0) {
+            row.mimeType = isDirectory
+                ? Document.MIME_TYPE_DIR
+                : _mimeResolver.typeForFile(file, row.lastModified);
         }
 
+        if ((attrs & ColumnPlan.NEED_WRITABLE) != 0)
+            row.flags = documentFlags(file, isDirectory, row.mimeType);
+
+        // Add a custom icon
+        // row.iconId = R.mipmap.ic_launcher;
+
+        return row;
+    }
+
+    private static int documentFlags (File file, boolean isDirectory, String mimeType)
+    {
         int flags = 0;
 
-        if (file.isDirectory()) {
+        final boolean writable = file.canWrite();
+
+        if (isDirectory) {
             // Request the folder to lay out as a grid rather than a list. This also allows a larger
             // thumbnail to be displayed for each image.
             //            flags |= Document.FLAG_DIR_PREFERS_GRID;
 
             // Add FLAG_DIR_SUPPORTS_CREATE if the file is a writable directory.
-            if (file.isDirectory() && file.canWrite()) {
+            if (writable) {
                 flags |= Document.FLAG_DIR_SUPPORTS_CREATE;
             }
-        } else if (file.canWrite()) {
-            // If the file is writable set FLAG_SUPPORTS_WRITE and
-            // FLAG_SUPPORTS_DELETE
+        } else if (writable) {
+            // If the file is writable set FLAG_SUPPORTS_WRITE
             flags |= Document.FLAG_SUPPORTS_WRITE;
+        }
+
+        // Directories are deleted, copied and moved recursively
+        if (writable) {
             flags |= Document.FLAG_SUPPORTS_DELETE;
 
             // Add SDK specific flags if appropriate
@@ -599,24 +1518,12 @@ public class UnifiedContentProvider extends DocumentsProvider
             }
         }
 
-        final String displayName = file.getName();
-        final String mimeType = getTypeForFile(file);
-
         if (mimeType.startsWith("image/")) {
             // Allow the image to be represented by a thumbnail rather than an icon
             flags |= Document.FLAG_SUPPORTS_THUMBNAIL;
         }
 
-        final MatrixCursor.RowBuilder row = result.newRow();
-        row.add(Document.COLUMN_DOCUMENT_ID, docId);
-        row.add(Document.COLUMN_DISPLAY_NAME, displayName);
-        row.add(Document.COLUMN_SIZE, file.length());
-        row.add(Document.COLUMN_MIME_TYPE, mimeType);
-        row.add(Document.COLUMN_LAST_MODIFIED, file.lastModified());
-        row.add(Document.COLUMN_FLAGS, flags);
-
-        // Add a custom icon
-        // row.add(Document.COLUMN_ICON, R.mipmap.ic_launcher);
+        return flags;
     }
 
     /**
@@ -628,41 +1535,94 @@ public class UnifiedContentProvider extends DocumentsProvider
      */
     private File getFileForDocId (String docId) throws FileNotFoundException
     {
-        logTrace(3, String.format("getFileForDocId: docId=%s", docId));
+        if (virtualRoot(docId) != null)
+            return _baseDir;
+
+        return resolveDocId(docId).file;
+    }
 
-        File target = _baseDir;
+    /**
+     * Translate ID of a document that may be modified into a File object. Such documents are
+     * under top directories. Top directories themselves can only receive new documents.
+     *
+     * @param docId       the document ID representing the desired file
+     * @param allowTopDir accept a top directory
+     * @return a File represented by the given document ID
+     * @throws java.io.FileNotFoundException
+     */
+    private File getFileForMutableDocId (String docId, boolean allowTopDir) throws FileNotFoundException
+    {
+        boolean mutable = _ancestorChains.isTopDir(docId)
+            ? allowTopDir
+            : _ancestorChains.parent(docId) != null;
 
-        if (docId.equals(ROOT))
-            return target;
+        if (!mutable)
+            throw new UnsupportedOperationException("Document can not be modified: " + docId);
 
-        final int splitIndex = docId.indexOf(':', 1);
+        return getFileForDocId(docId);
+    }
 
-        if (splitIndex < 0) {
-            throw new FileNotFoundException("Missing root for " + docId);
-        } else {
-            final String path = docId.substring(splitIndex + 1);
-            target = new File(target, path);
-            if (!target.exists()) {
-                throw new FileNotFoundException("Missing file for " + docId + " at " + target);
+    /**
+     * Resolve document ID into existing file and its attributes, using the docId cache.
+     *
+     * @param docId the document ID representing the desired file, must not be a virtual root
+     * @return resolved file with attributes
+     * @throws java.io.FileNotFoundException
+     */
+    private DocIdCache.Resolved resolveDocId (String docId) throws FileNotFoundException
+    {
+        DocIdCache.Resolved resolved = _docIdCache.get(docId);
+
+        if (resolved == null) {
+            logTrace(3, "resolveDocId: docId=%s", docId);
+
+            final File target = _docIdMapper.fileForDocId(docId);
+            BasicFileAttributes attrs = null;
+
+            try {
+                attrs = Files.readAttributes(target.toPath(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Missing, remembered for a short time
             }
-            return target;
+
+            resolved = _docIdCache.put(docId, target, attrs);
         }
+
+        if (!resolved.exists())
+            throw new FileNotFoundException("Missing file for " + docId + " at " + resolved.file);
+
+        return resolved;
     }
 
     public static class Caller
     {
         public static final String METHOD_URI_FROM_FILE = "uriFromFile";
+        public static final String METHOD_URIS_FROM_FILES = "urisFromFiles";
+        public static final String METHOD_FILE_INFOS = "fileInfos";
+        public static final String METHOD_STATS = "stats";
         public static final String ARG_1 = "arg1";
         public static final String ARG_2 = "arg2";
         public static final String ARG_3 = "arg3";
         public static final String RESULT_ERROR = "error";
         public static final String RESULT_ERROR_MESSAGE = "error_message";
         public static final String RESULT_URI = "uri";
+        public static final String RESULT_URIS = "uris";
+        public static final String RESULT_ERRORS = "errors";
+        public static final String RESULT_DISPLAY_NAMES = "display_names";
+        public static final String RESULT_MIME_TYPES = "mime_types";
+        public static final String RESULT_SIZES = "sizes";
+        public static final String RESULT_MOD_TIMES = "mod_times";
 
         // Error codes for call results
         public static final int IOEXCEPTION_ERROR = 1;
         public static final int FILE_NOT_MATCH_ERROR = 2;
         public static final int NULL_ARG_ERROR = 3;
+        public static final int FILE_NOT_FOUND_ERROR = 4;
+        public static final int PERMISSION_DENIED_ERROR = 5;
+
+        // Number of paths or URIs sent by one call, keeps transactions far below the Binder
+        // buffer size
+        public static final int BATCH_SIZE = 1000;
 
         private ContentResolver _contentResolver;
 
@@ -696,6 +1656,60 @@ public class UnifiedContentProvider extends DocumentsProvider
         {
             return getUriFromFilePath(authority, file.toString());
         }
+
+        /**
+         * @return provider statistics, see ProviderStats.toBundle() for the layout
+         */
+        public Bundle getStats (String authority)
+        {
+            return call(authority, METHOD_STATS, null, null);
+        }
+
+        /**
+         * Resolves many file paths at once, by one call per BATCH_SIZE paths.
+         *
+         * @param authority the provider authority
+         * @param filePaths the file paths
+         * @return URIs in the order of the paths, null for a path that is not under any top
+         *         directory or can not be resolved; null if the provider does not respond
+         */
+        public Uri[] getUrisFromFilePaths (String authority, String[] filePaths)
+        {
+            Uri[] uris = new Uri[filePaths.length];
+
+            for (int from = 0; from < filePaths.length; from += BATCH_SIZE) {
+                int to = Math.min(filePaths.length, from + BATCH_SIZE);
+
+                Bundle args = new Bundle();
+                args.putString(ARG_1, authority);
+                args.putStringArray(ARG_2, from == 0 && to == filePaths.length
+                    ? filePaths : Arrays.copyOfRange(filePaths, from, to));
+                Bundle result = call(authority, METHOD_URIS_FROM_FILES, null, args);
+
+                if (result == null)
+                    return null;
+
+                String[] batch = result.getStringArray(RESULT_URIS);
+
+                if (batch == null)
+                    return null;
+
+                for (int i = 0; i < batch.length; i++)
+                    uris[from + i] = batch[i] != null ? Uri.parse(batch[i]) : null;
+            }
+
+            return uris;
+        }
+
+        public Uri[] getUrisFromFiles (String authority, File[] files)
+        {
+            String[] filePaths = new String[files.length];
+
+            for (int i = 0; i < files.length; i++)
+                filePaths[i] = files[i].toString();
+
+            return getUrisFromFilePaths(authority, filePaths);
+        }
     }
 
     private class Callee
@@ -731,10 +1745,25 @@ public class UnifiedContentProvider extends DocumentsProvider
                 , key, argDescription));
         }
 
+        // Resolves a file path into a document URI
+        private Uri resolveUri (String authority, String filePath) throws IOException
+        {
+            String path = new File(filePath).getCanonicalPath();
+            PathPrefixTrie.Match<TopDirCredentials> match = topDirTrie().find(path);
+
+            if (match == null)
+                return null;
+
+            logTrace(2, "Top directory matches: %s", match.value.folder);
+
+            String relativePath = path.substring(match.prefixLength);
+            return buildContentUri(authority, new File(match.value.folder, relativePath));
+        }
+
         public Bundle handle (String method, String arg, Bundle args)
         {
             switch (method) {
-                case Caller.METHOD_URI_FROM_FILE:
+                case Caller.METHOD_URI_FROM_FILE: {
                     String authority = args.getString(Caller.ARG_1, null);
                     String filePath  = args.getString(Caller.ARG_2, null);
 
@@ -747,45 +1776,170 @@ public class UnifiedContentProvider extends DocumentsProvider
                     Say.d("FILE: " + filePath);
 
                     try {
-                        File file = new File(filePath).getCanonicalFile();
-
-                        for (TopDirCredentials cred: _topDirs) {
-                            File parent = cred.folder.getCanonicalFile();
-                            File child = file;
-
-                            while (child != null) {
-                                if (child.equals(parent)) {
-                                    Say.t(2, "Top directory matches: " + cred.folder);
-
-                                    String path = file.getPath();
-                                    String parentPath = parent.getPath();
-                                    String relativePath = path.substring(parentPath.length());
-                                    file = new File(cred.folder, relativePath);
-
-                                    Bundle result = new Bundle();
-                                    result.putString(Caller.RESULT_URI, buildContentUri(authority, file).toString());
-                                    return result;
-                                }
-                                child = child.getParentFile();
-                            }
-                        }
+                        Uri uri = resolveUri(authority, filePath);
 
-                        return errorResult(Caller.FILE_NOT_MATCH_ERROR);
+                        if (uri == null)
+                            return errorResult(Caller.FILE_NOT_MATCH_ERROR);
+
+                        Bundle result = new Bundle();
+                        result.putString(Caller.RESULT_URI, uri.toString());
+                        return result;
                     } catch (IOException e) {
                         return errorResult(Caller.IOEXCEPTION_ERROR, e.getMessage());
                     }
+                }
+
+                case Caller.METHOD_URIS_FROM_FILES: {
+                    String authority = args.getString(Caller.ARG_1, null);
+                    String[] filePaths = args.getStringArray(Caller.ARG_2);
+
+                    if (authority == null)
+                        return argumentExpectedError(Caller.ARG_1, "Authority");
+
+                    if (filePaths == null)
+                        return argumentExpectedError(Caller.ARG_2, "File paths");
+
+                    String[] uris = new String[filePaths.length];
+                    int[] errors = new int[filePaths.length];
+
+                    for (int i = 0; i < filePaths.length; i++) {
+                        if (filePaths[i] == null) {
+                            errors[i] = Caller.NULL_ARG_ERROR;
+                            continue;
+                        }
+
+                        try {
+                            Uri uri = resolveUri(authority, filePaths[i]);
+
+                            if (uri != null)
+                                uris[i] = uri.toString();
+                            else
+                                errors[i] = Caller.FILE_NOT_MATCH_ERROR;
+                        } catch (IOException e) {
+                            errors[i] = Caller.IOEXCEPTION_ERROR;
+                        }
+                    }
+
+                    Bundle result = new Bundle();
+                    result.putStringArray(Caller.RESULT_URIS, uris);
+                    result.putIntArray(Caller.RESULT_ERRORS, errors);
+                    return result;
+                }
+
+                case Caller.METHOD_STATS:
+                    return _stats.toBundle();
+
+                case Caller.METHOD_FILE_INFOS: {
+                    String[] uris = args.getStringArray(Caller.ARG_1);
+
+                    if (uris == null)
+                        return argumentExpectedError(Caller.ARG_1, "Document URIs");
+
+                    return fileInfos(uris);
+                }
+
                 default:
                     break;
             }
             return null;
         }
+
+        // Same as a query of name, MIME type, size and modification time for each document,
+        // results are arrays in the order of URIs
+        private Bundle fileInfos (String[] uris)
+        {
+            String[] displayNames = new String[uris.length];
+            String[] mimeTypes = new String[uris.length];
+            long[] sizes = new long[uris.length];
+            long[] modTimes = new long[uris.length];
+            int[] errors = new int[uris.length];
+
+            for (int i = 0; i < uris.length; i++) {
+                Uri uri = uris[i] != null ? Uri.parse(uris[i]) : null;
+                String docId = null;
+
+                if (uri != null && _authority.equals(uri.getAuthority())) {
+                    try {
+                        docId = DocumentsContract.getDocumentId(uri);
+                    } catch (IllegalArgumentException e) {
+                        // Not a document URI
+                    }
+                }
+
+                if (docId == null) {
+                    errors[i] = Caller.FILE_NOT_MATCH_ERROR;
+                    continue;
+                }
+
+                // call() is not guarded by the provider permissions, the caller must be granted
+                // the document as for a query
+                if (getContext().checkCallingOrSelfUriPermission(uri
+                        , Intent.FLAG_GRANT_READ_URI_PERMISSION) != PackageManager.PERMISSION_GRANTED) {
+                    errors[i] = Caller.PERMISSION_DENIED_ERROR;
+                    continue;
+                }
+
+                // A tree grant covers any document URI under the tree URI, so the document must
+                // be under the tree as well: enforceTree() is not applied to call()
+                if (DocumentsContract.isTreeUri(uri)) {
+                    List<String> chain = _ancestorChains.chain(docId);
+
+                    if (chain == null || !chain.contains(DocumentsContract.getTreeDocumentId(uri))) {
+                        errors[i] = Caller.PERMISSION_DENIED_ERROR;
+                        continue;
+                    }
+                }
+
+                try {
+                    DocumentRow row = buildFileRow(docId, null, ColumnPlan.NEED_STAT | ColumnPlan.NEED_MIME);
+                    displayNames[i] = row.displayName;
+                    mimeTypes[i] = row.mimeType;
+                    sizes[i] = row.size;
+                    modTimes[i] = row.lastModified;
+                } catch (FileNotFoundException e) {
+                    errors[i] = Caller.FILE_NOT_FOUND_ERROR;
+                }
+            }
+
+            Bundle result = new Bundle();
+            result.putStringArray(Caller.RESULT_DISPLAY_NAMES, displayNames);
+            result.putStringArray(Caller.RESULT_MIME_TYPES, mimeTypes);
+            result.putLongArray(Caller.RESULT_SIZES, sizes);
+            result.putLongArray(Caller.RESULT_MOD_TIMES, modTimes);
+            result.putIntArray(Caller.RESULT_ERRORS, errors);
+            return result;
+        }
     }
 
     @Override
     public Bundle call (String method, String arg, Bundle extras)
     {
-        Callee callee = new Callee();
-        Bundle result = callee.handle(method, arg, extras);
-        return result != null ? result : super.call(method, arg, extras);
+        // Statistics are available while initialization is in progress
+        if (!Caller.METHOD_STATS.equals(method))
+            awaitInit();
+
+        final long started = _stats.start();
+        boolean failed = true;
+
+        try {
+            Callee callee = new Callee();
+            Bundle result = callee.handle(method, arg, extras);
+            result = result != null ? result : super.call(method, arg, extras);
+            failed = result == null || result.containsKey(Caller.RESULT_ERROR);
+            return result;
+        } finally {
+            _stats.record(ProviderStats.CALL, started, 0, failed);
+        }
+    }
+
+    @Override
+    public void dump (FileDescriptor fd, PrintWriter writer, String[] args)
+    {
+        _stats.dump(writer);
+    }
+
+    private static int rowCount (Cursor cursor)
+    {
+        return cursor != null ? cursor.getCount() : 0;
     }
 }
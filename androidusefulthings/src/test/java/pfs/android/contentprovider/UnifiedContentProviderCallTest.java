@@ -0,0 +1,113 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.content.Context;
+import android.content.pm.ProviderInfo;
+import android.net.Uri;
+import android.os.Bundle;
+import android.provider.DocumentsContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+// call() methods of UnifiedContentProvider on the host JVM.
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class UnifiedContentProviderCallTest
+{
+    private static final String AUTHORITY = "pfs.android.contentprovider.calltest";
+
+    private UnifiedContentProvider _provider;
+
+    @Before
+    public void setUp () throws IOException
+    {
+        Context context = RuntimeEnvironment.getApplication();
+        File baseDir = context.getFilesDir();
+
+        createFile(new File(baseDir, "Folder1/inside.txt"));
+        createFile(new File(baseDir, "Folder2/outside.txt"));
+
+        Bundle metaData = new Bundle();
+        metaData.putString("provider_top_dirs", "Folder1;Folder 1\nFolder2;Folder 2");
+
+        ProviderInfo info = new ProviderInfo();
+        info.authority = AUTHORITY;
+        info.name = UnifiedContentProvider.class.getName();
+        info.packageName = context.getPackageName();
+        info.applicationInfo = context.getApplicationInfo();
+        info.exported = true;
+        info.grantUriPermissions = true;
+        info.metaData = metaData;
+
+        // The provider reads its meta-data from the package manager
+        shadowOf(context.getPackageManager()).addOrUpdateProvider(info);
+
+        _provider = Robolectric.buildContentProvider(UnifiedContentProvider.class).create(info).get();
+    }
+
+    @After
+    public void tearDown ()
+    {
+        if (_provider != null)
+            _provider.shutdown();
+    }
+
+    private static void createFile (File file) throws IOException
+    {
+        if (!file.getParentFile().mkdirs() && !file.getParentFile().isDirectory())
+            throw new IOException("Unable to create directory: " + file.getParentFile());
+
+        FileOutputStream out = new FileOutputStream(file);
+
+        try {
+            out.write(file.getName().getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    // A grant of the tree URI passes the URI permission check of any document URI under it
+    @Test
+    public void fileInfosOfTreeUriOutsideTree ()
+    {
+        Uri treeUri = DocumentsContract.buildTreeDocumentUri(AUTHORITY, "files:Folder1");
+
+        String[] uris = new String[] {
+            DocumentsContract.buildDocumentUriUsingTree(treeUri, "files:Folder1/inside.txt").toString(),
+            DocumentsContract.buildDocumentUriUsingTree(treeUri, "files:Folder2/outside.txt").toString(),
+            DocumentsContract.buildDocumentUriUsingTree(treeUri, "files:Folder1/../Folder2/outside.txt").toString()
+        };
+
+        Bundle args = new Bundle();
+        args.putStringArray(UnifiedContentProvider.Caller.ARG_1, uris);
+
+        Bundle result = _provider.call(UnifiedContentProvider.Caller.METHOD_FILE_INFOS, null, args);
+        int[] errors = result.getIntArray(UnifiedContentProvider.Caller.RESULT_ERRORS);
+
+        assertEquals(0, errors[0]);
+        assertEquals("inside.txt", result.getStringArray(UnifiedContentProvider.Caller.RESULT_DISPLAY_NAMES)[0]);
+        assertEquals(UnifiedContentProvider.Caller.PERMISSION_DENIED_ERROR, errors[1]);
+        assertEquals(UnifiedContentProvider.Caller.PERMISSION_DENIED_ERROR, errors[2]);
+    }
+}
@@ -0,0 +1,374 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import android.content.Context;
+import android.content.pm.ProviderInfo;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+// Load test harness of UnifiedContentProvider, runs on the host JVM.
+//
+// Generates a tree under the provider base directory, then drives
+// queryChildDocuments(), queryDocument(), openDocument() and the
+// `uriFromFile` call from several threads and reports throughput and
+// p50/p99 latency per method. The test is opt-in: it is skipped unless at
+// least one `loadtest.*` system property is set (`-Dloadtest.enabled=true`
+// runs it with the defaults). The tree and the load are configured by system
+// properties:
+//
+//      loadtest.topDirs  - number of top directories (4)
+//      loadtest.width    - files per directory (100)
+//      loadtest.fanout   - subdirectories per directory (2)
+//      loadtest.depth    - levels of subdirectories (3)
+//      loadtest.threads  - number of client threads (4)
+//      loadtest.ops      - operations per thread (2000)
+//
+//      ./gradlew :AndroidUsefulThings:testDebugUnitTest \
+//          --tests pfs.android.contentprovider.UnifiedContentProviderLoadTest \
+//          -Dloadtest.width=10000 -Dloadtest.depth=1
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class UnifiedContentProviderLoadTest
+{
+    private static final String AUTHORITY = "pfs.android.contentprovider.loadtest";
+
+    private static final int QUERY_CHILD_DOCUMENTS = 0;
+    private static final int QUERY_DOCUMENT        = 1;
+    private static final int OPEN_DOCUMENT         = 2;
+    private static final int URI_FROM_FILE         = 3;
+
+    private static final String[] OPERATION_NAMES = new String[] {
+        "queryChildDocuments", "queryDocument", "openDocument", "uriFromFile"
+    };
+
+    private final int _topDirs = Integer.getInteger("loadtest.topDirs", 4);
+    private final int _width = Integer.getInteger("loadtest.width", 100);
+    private final int _fanout = Integer.getInteger("loadtest.fanout", 2);
+    private final int _depth = Integer.getInteger("loadtest.depth", 3);
+    private final int _threads = Integer.getInteger("loadtest.threads", 4);
+    private final int _ops = Integer.getInteger("loadtest.ops", 2000);
+
+    private File _baseDir;
+    private DocIdMapper _docIdMapper;
+    private final ArrayList<File> _dirs = new ArrayList<File>();
+    private final ArrayList<File> _files = new ArrayList<File>();
+    private UnifiedContentProvider _provider;
+    private final AtomicLong _errors = new AtomicLong();
+
+    // Latencies of one thread in nanoseconds by operation
+    private static class Samples
+    {
+        final long[][] nanos = new long[OPERATION_NAMES.length][];
+        final int[] counts = new int[OPERATION_NAMES.length];
+
+        Samples (int capacity)
+        {
+            for (int i = 0; i < nanos.length; i++)
+                nanos[i] = new long[capacity];
+        }
+
+        void add (int operation, long value)
+        {
+            nanos[operation][counts[operation]++] = value;
+        }
+    }
+
+    @Before
+    public void setUp () throws IOException
+    {
+        Assume.assumeTrue("Load test is not enabled by loadtest.* properties", isEnabled());
+
+        Context context = RuntimeEnvironment.getApplication();
+
+        _baseDir = context.getFilesDir();
+        _docIdMapper = new DocIdMapper("files", _baseDir);
+
+        StringBuilder topDirRecords = new StringBuilder();
+
+        for (int i = 0; i < _topDirs; i++) {
+            String name = "TopDir" + i;
+            generate(new File(_baseDir, name), 0);
+
+            if (i > 0)
+                topDirRecords.append('\n');
+
+            topDirRecords.append(name).append(";Top directory ").append(i);
+        }
+
+        Bundle metaData = new Bundle();
+        metaData.putString("provider_top_dirs", topDirRecords.toString());
+
+        ProviderInfo info = new ProviderInfo();
+        info.authority = AUTHORITY;
+        info.name = UnifiedContentProvider.class.getName();
+        info.packageName = context.getPackageName();
+        info.applicationInfo = context.getApplicationInfo();
+        info.exported = true;
+        info.grantUriPermissions = true;
+        info.metaData = metaData;
+
+        // The provider reads its meta-data from the package manager
+        shadowOf(context.getPackageManager()).addOrUpdateProvider(info);
+
+        _provider = Robolectric.buildContentProvider(UnifiedContentProvider.class).create(info).get();
+
+        System.out.println(String.format("Tree: %d top directories, %d directories, %d files"
+            , _topDirs, _dirs.size(), _files.size()));
+    }
+
+    @After
+    public void tearDown ()
+    {
+        if (_provider != null)
+            _provider.shutdown();
+    }
+
+    private static boolean isEnabled ()
+    {
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("loadtest."))
+                return true;
+        }
+
+        return false;
+    }
+
+    private void generate (File dir, int level) throws IOException
+    {
+        if (!dir.mkdirs() && !dir.isDirectory())
+            throw new IOException("Unable to create directory: " + dir);
+
+        _dirs.add(dir);
+
+        for (int i = 0; i < _width; i++) {
+            File file = new File(dir, String.format("file%05d.txt", i));
+            FileOutputStream out = new FileOutputStream(file);
+
+            try {
+                out.write(file.getName().getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+
+            _files.add(file);
+        }
+
+        if (level < _depth) {
+            for (int i = 0; i < _fanout; i++)
+                generate(new File(dir, String.format("dir%03d", i)), level + 1);
+        }
+    }
+
+    @Test
+    public void load () throws Exception
+    {
+        // Warm up: initialization, JIT and caches
+        run(Math.max(1, _ops / 10));
+
+        long started = System.nanoTime();
+        List<Samples> samples = run(_ops);
+        long elapsed = System.nanoTime() - started;
+
+        report(samples, elapsed);
+
+        StringWriter stats = new StringWriter();
+        _provider.dump(null, new PrintWriter(stats), null);
+        System.out.println(stats);
+
+        assertEquals("failed operations", 0, _errors.get());
+    }
+
+    private List<Samples> run (final int ops) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(_threads);
+        ArrayList<Future<Samples>> futures = new ArrayList<Future<Samples>>();
+
+        try {
+            for (int t = 0; t < _threads; t++) {
+                final Random random = new Random(t);
+
+                futures.add(executor.submit(new Callable<Samples>() {
+                    @Override
+                    public Samples call ()
+                    {
+                        Samples samples = new Samples(ops);
+
+                        for (int i = 0; i < ops; i++) {
+                            int operation = random.nextInt(OPERATION_NAMES.length);
+                            long started = System.nanoTime();
+
+                            try {
+                                perform(operation, random);
+                            } catch (Exception e) {
+                                _errors.incrementAndGet();
+                                e.printStackTrace();
+                            }
+
+                            samples.add(operation, System.nanoTime() - started);
+                        }
+
+                        return samples;
+                    }
+                }));
+            }
+
+            ArrayList<Samples> result = new ArrayList<Samples>();
+
+            for (Future<Samples> future : futures)
+                result.add(future.get());
+
+            return result;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void perform (int operation, Random random) throws IOException
+    {
+        switch (operation) {
+            case QUERY_CHILD_DOCUMENTS: {
+                File dir = _dirs.get(random.nextInt(_dirs.size()));
+                Cursor cursor = _provider.queryChildDocuments(_docIdMapper.docIdForFile(dir), null, (String) null);
+
+                try {
+                    // Fill the window as a client would
+                    while (cursor.moveToNext())
+                        ;
+                } finally {
+                    cursor.close();
+                }
+
+                break;
+            }
+
+            case QUERY_DOCUMENT: {
+                File file = _files.get(random.nextInt(_files.size()));
+                Cursor cursor = _provider.queryDocument(_docIdMapper.docIdForFile(file), null);
+
+                try {
+                    if (!cursor.moveToFirst())
+                        throw new IOException("No row for " + file);
+                } finally {
+                    cursor.close();
+                }
+
+                break;
+            }
+
+            case OPEN_DOCUMENT: {
+                File file = _files.get(random.nextInt(_files.size()));
+                ParcelFileDescriptor pfd = _provider.openDocument(_docIdMapper.docIdForFile(file), "r", null);
+                FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(pfd);
+
+                try {
+                    byte[] buffer = new byte[4096];
+
+                    while (in.read(buffer) >= 0)
+                        ;
+                } finally {
+                    in.close();
+                }
+
+                break;
+            }
+
+            case URI_FROM_FILE: {
+                File file = _files.get(random.nextInt(_files.size()));
+                Bundle args = new Bundle();
+                args.putString(UnifiedContentProvider.Caller.ARG_1, AUTHORITY);
+                args.putString(UnifiedContentProvider.Caller.ARG_2, file.getPath());
+
+                Bundle result = _provider.call(UnifiedContentProvider.Caller.METHOD_URI_FROM_FILE, null, args);
+
+                if (result == null || result.getString(UnifiedContentProvider.Caller.RESULT_URI) == null)
+                    throw new IOException("No URI for " + file);
+
+                break;
+            }
+
+            default:
+                break;
+        }
+    }
+
+    private void report (List<Samples> samples, long elapsedNanos)
+    {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+
+        System.out.println(String.format("Load: %d threads x %d operations in %.2f s"
+            , _threads, _ops, seconds));
+        System.out.println(String.format("  %-20s %8s %10s %10s %10s"
+            , "operation", "count", "ops/s", "p50 us", "p99 us"));
+
+        for (int operation = 0; operation < OPERATION_NAMES.length; operation++) {
+            int count = 0;
+
+            for (Samples s : samples)
+                count += s.counts[operation];
+
+            long[] nanos = new long[count];
+            int pos = 0;
+
+            for (Samples s : samples) {
+                System.arraycopy(s.nanos[operation], 0, nanos, pos, s.counts[operation]);
+                pos += s.counts[operation];
+            }
+
+            Arrays.sort(nanos);
+            total += count;
+
+            System.out.println(String.format("  %-20s %8d %10.0f %10.1f %10.1f"
+                , OPERATION_NAMES[operation], count, count / seconds
+                , percentile(nanos, 50) / 1e3, percentile(nanos, 99) / 1e3));
+        }
+
+        System.out.println(String.format("  %-20s %8d %10.0f", "total", total, total / seconds));
+    }
+
+    private static long percentile (long[] sorted, int percent)
+    {
+        if (sorted.length == 0)
+            return 0;
+
+        int index = (int) Math.ceil(sorted.length * percent / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,49 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// File <-> document ID mapping done for every row of every cursor.
+@State(Scope.Benchmark)
+public class DocIdMapperBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private SyntheticTree _tree;
+    private DocIdMapper _mapper;
+
+    @Setup
+    public void setup ()
+    {
+        _tree = new SyntheticTree(size);
+        _mapper = new DocIdMapper(SyntheticTree.ROOT_ID, SyntheticTree.BASE_DIR);
+    }
+
+    @Benchmark
+    public String docIdForFile ()
+    {
+        return _mapper.docIdForFile(_tree.files[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public File fileForDocId () throws FileNotFoundException
+    {
+        return _mapper.fileForDocId(_tree.docIds[ThreadLocalRandom.current().nextInt(size)]);
+    }
+}
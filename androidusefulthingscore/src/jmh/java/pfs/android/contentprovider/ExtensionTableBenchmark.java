@@ -0,0 +1,47 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// MIME type lookup by file name extension, done for every file row.
+@State(Scope.Benchmark)
+public class ExtensionTableBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private String[] _names;
+    private ExtensionTable _table;
+
+    @Setup
+    public void setup ()
+    {
+        SyntheticTree tree = new SyntheticTree(size);
+
+        _names = new String[size];
+
+        for (int i = 0; i < size; i++)
+            _names[i] = tree.files[i].getName();
+
+        _table = new ExtensionTable();
+    }
+
+    @Benchmark
+    public String lookupName ()
+    {
+        return _table.lookupName(_names[ThreadLocalRandom.current().nextInt(size)]);
+    }
+}
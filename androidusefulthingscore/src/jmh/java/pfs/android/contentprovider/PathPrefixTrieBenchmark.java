@@ -0,0 +1,52 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Top directory lookup of uriFromFile() and the batch urisFromFiles call.
+@State(Scope.Benchmark)
+public class PathPrefixTrieBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private String[] _paths;
+    private PathPrefixTrie<TopDirRecord> _trie;
+
+    @Setup
+    public void setup ()
+    {
+        SyntheticTree tree = new SyntheticTree(size);
+
+        _paths = new String[size];
+
+        for (int i = 0; i < size; i++)
+            _paths[i] = tree.files[i].getPath();
+
+        _trie = new PathPrefixTrie<TopDirRecord>();
+
+        for (String record : tree.topDirRecords) {
+            TopDirRecord topDir = TopDirRecord.parse(record);
+            _trie.add(topDir.folder(SyntheticTree.BASE_DIR).getPath(), topDir);
+        }
+    }
+
+    @Benchmark
+    public PathPrefixTrie.Match<TopDirRecord> find ()
+    {
+        return _trie.find(_paths[ThreadLocalRandom.current().nextInt(size)]);
+    }
+}
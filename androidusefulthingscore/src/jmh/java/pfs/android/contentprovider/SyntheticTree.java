@@ -0,0 +1,72 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.io.File;
+import java.util.Random;
+
+// Deterministic synthetic directory tree for benchmarks.
+//
+// Paths are generated lexically (the file system is not touched): every
+// directory has FANOUT children, the first level directories are the top
+// directories, the leaves are files with extensions from EXTENSIONS.
+final class SyntheticTree
+{
+    static final String ROOT_ID = "files";
+    static final File BASE_DIR = new File("/data/user/0/pfs.android.contentprovider/files");
+    static final int FANOUT = 32;
+
+    static final String[] EXTENSIONS = new String[] {
+        "jpeg", "png", "pdf", "txt", "mp3", "mp4", "zip", "html", "unknown", "JPG"
+    };
+
+    final File[] files;
+    final String[] docIds;
+    final String[] topDirRecords;
+
+    SyntheticTree (int size)
+    {
+        DocIdMapper mapper = new DocIdMapper(ROOT_ID, BASE_DIR);
+        Random random = new Random(size);
+
+        files = new File[size];
+        docIds = new String[size];
+        topDirRecords = new String[FANOUT];
+
+        for (int i = 0; i < FANOUT; i++) {
+            topDirRecords[i] = "Folder" + i + ";Folder " + i
+                + (i % 4 == 0 ? ";nosubdirs" : "");
+        }
+
+        for (int i = 0; i < size; i++) {
+            files[i] = new File(BASE_DIR, relativePath(i, size, random));
+            docIds[i] = mapper.docIdForFile(files[i]);
+        }
+    }
+
+    // Path of the i-th leaf: one directory component per FANOUT-ary digit of i
+    private static String relativePath (int i, int size, Random random)
+    {
+        StringBuilder sb = new StringBuilder();
+        int n = i;
+
+        sb.append("Folder").append(n % FANOUT);
+        n /= FANOUT;
+
+        for (int level = FANOUT; level < size / FANOUT; level *= FANOUT) {
+            sb.append("/dir").append(n % FANOUT);
+            n /= FANOUT;
+        }
+
+        sb.append("/file").append(i).append('.')
+            .append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,43 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Parsing of `provider_top_dirs` records, done on every determineTopDirs().
+@State(Scope.Benchmark)
+public class TopDirRecordBenchmark
+{
+    private String[] _records;
+
+    @Setup
+    public void setup ()
+    {
+        _records = new SyntheticTree(0).topDirRecords;
+    }
+
+    @Benchmark
+    public TopDirRecord parse ()
+    {
+        return TopDirRecord.parse(_records[ThreadLocalRandom.current().nextInt(_records.length)]);
+    }
+
+    @Benchmark
+    public File parseAndResolve ()
+    {
+        return TopDirRecord.parse(_records[ThreadLocalRandom.current().nextInt(_records.length)])
+            .folder(SyntheticTree.BASE_DIR);
+    }
+}
@@ -0,0 +1,73 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+// Mapping between files and document IDs of UnifiedContentProvider.
+//
+// A document ID is the root ID followed by ':' and the path of the file
+// relative to the base directory, e.g. "files:Folder2/image.jpeg" or
+// "files:../OutsideFolder/sample.pdf". The mapping is purely lexical, the
+// file system is not accessed.
+public final class DocIdMapper
+{
+    private final String _rootId;
+    private final File _baseDir;
+    private final String _basePath;
+
+    public DocIdMapper (String rootId, File baseDir)
+    {
+        _rootId = rootId;
+        _baseDir = baseDir;
+        _basePath = baseDir.getPath();
+    }
+
+    public File baseDir ()
+    {
+        return _baseDir;
+    }
+
+    /**
+     * @param file the file under the base directory (or a top directory outside of it,
+     *             given by a path relative to the base directory)
+     * @return the document ID of the file
+     */
+    public String docIdForFile (File file)
+    {
+        String path = file.getAbsolutePath();
+
+        // Start at first char of path under root
+        if (_basePath.equals(path)) {
+            path = "";
+        } else if (_basePath.endsWith("/")) {
+            path = path.substring(_basePath.length());
+        } else {
+            path = path.substring(_basePath.length() + 1);
+        }
+
+        return _rootId + ':' + path;
+    }
+
+    /**
+     * @param docId the document ID
+     * @return the file represented by the document ID, it may not exist
+     * @throws FileNotFoundException if the document ID has no root part
+     */
+    public File fileForDocId (String docId) throws FileNotFoundException
+    {
+        final int splitIndex = docId.indexOf(':', 1);
+
+        if (splitIndex < 0)
+            throw new FileNotFoundException("Missing root for " + docId);
+
+        return new File(_baseDir, docId.substring(splitIndex + 1));
+    }
+}
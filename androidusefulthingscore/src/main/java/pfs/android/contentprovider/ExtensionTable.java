@@ -0,0 +1,176 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+// Precomputed case-insensitive file extension to MIME type table.
+//
+// Lookup hashes the extension in place within the file name, so no substring
+// or lower-cased copy is allocated per lookup.
+public final class ExtensionTable
+{
+    private static final String[] DEFAULT_TYPES = {
+        // Images
+          "jpg", "image/jpeg"
+        , "jpeg", "image/jpeg"
+        , "png", "image/png"
+        , "gif", "image/gif"
+        , "bmp", "image/bmp"
+        , "webp", "image/webp"
+        , "heic", "image/heic"
+        , "heif", "image/heif"
+        , "svg", "image/svg+xml"
+        , "ico", "image/x-icon"
+        , "tif", "image/tiff"
+        , "tiff", "image/tiff"
+
+        // Audio
+        , "mp3", "audio/mpeg"
+        , "m4a", "audio/mp4"
+        , "aac", "audio/aac"
+        , "ogg", "audio/ogg"
+        , "oga", "audio/ogg"
+        , "opus", "audio/ogg"
+        , "flac", "audio/flac"
+        , "wav", "audio/x-wav"
+        , "mid", "audio/midi"
+        , "midi", "audio/midi"
+        , "amr", "audio/amr"
+
+        // Video
+        , "mp4", "video/mp4"
+        , "m4v", "video/mp4"
+        , "3gp", "video/3gpp"
+        , "webm", "video/webm"
+        , "mkv", "video/x-matroska"
+        , "avi", "video/x-msvideo"
+        , "mov", "video/quicktime"
+        , "mpg", "video/mpeg"
+        , "mpeg", "video/mpeg"
+        , "ts", "video/mp2ts"
+
+        // Text
+        , "txt", "text/plain"
+        , "log", "text/plain"
+        , "csv", "text/csv"
+        , "tsv", "text/tab-separated-values"
+        , "htm", "text/html"
+        , "html", "text/html"
+        , "css", "text/css"
+        , "xml", "text/xml"
+        , "md", "text/markdown"
+        , "ini", "text/plain"
+        , "conf", "text/plain"
+        , "vcf", "text/x-vcard"
+        , "ics", "text/calendar"
+        , "rtf", "application/rtf"
+
+        // Documents
+        , "pdf", "application/pdf"
+        , "doc", "application/msword"
+        , "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"
+        , "xls", "application/vnd.ms-excel"
+        , "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+        , "ppt", "application/vnd.ms-powerpoint"
+        , "pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation"
+        , "odt", "application/vnd.oasis.opendocument.text"
+        , "ods", "application/vnd.oasis.opendocument.spreadsheet"
+        , "odp", "application/vnd.oasis.opendocument.presentation"
+        , "epub", "application/epub+zip"
+
+        // Archives and binaries
+        , "zip", "application/zip"
+        , "gz", "application/gzip"
+        , "tgz", "application/gzip"
+        , "bz2", "application/x-bzip2"
+        , "xz", "application/x-xz"
+        , "7z", "application/x-7z-compressed"
+        , "rar", "application/x-rar-compressed"
+        , "tar", "application/x-tar"
+        , "jar", "application/java-archive"
+        , "apk", "application/vnd.android.package-archive"
+        , "json", "application/json"
+        , "js", "application/javascript"
+        , "db", "application/vnd.sqlite3"
+        , "sqlite", "application/vnd.sqlite3"
+        , "bin", "application/octet-stream"
+    };
+
+    private final String[] _keys;
+    private final String[] _values;
+    private final int _mask;
+
+    public ExtensionTable ()
+    {
+        this(DEFAULT_TYPES);
+    }
+
+    // `pairs` is a flat list of lower-case extension / MIME type pairs
+    public ExtensionTable (String[] pairs)
+    {
+        int capacity = Integer.highestOneBit(Math.max(pairs.length, 4)) * 4;
+
+        _keys = new String[capacity];
+        _values = new String[capacity];
+        _mask = capacity - 1;
+
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            String ext = pairs[i];
+            int slot = hash(ext, 0, ext.length()) & _mask;
+
+            while (_keys[slot] != null && !_keys[slot].equals(ext))
+                slot = (slot + 1) & _mask;
+
+            _keys[slot] = ext;
+            _values[slot] = pairs[i + 1];
+        }
+    }
+
+    private static int hash (String s, int from, int to)
+    {
+        int h = 0;
+
+        for (int i = from; i < to; i++)
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+
+        // Spread the bits, the table is indexed by low bits
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return MIME type for the extension of the file name or null if the name has no extension
+     *         or it is unknown
+     */
+    public String lookupName (String name)
+    {
+        int lastDot = name.lastIndexOf('.');
+
+        if (lastDot < 0 || lastDot == name.length() - 1)
+            return null;
+
+        return lookup(name, lastDot + 1, name.length());
+    }
+
+    // Looks up the extension occupying [from, to) of `s`
+    public String lookup (String s, int from, int to)
+    {
+        int length = to - from;
+        int slot = hash(s, from, to) & _mask;
+
+        while (_keys[slot] != null) {
+            String key = _keys[slot];
+
+            if (key.length() == length && s.regionMatches(true, from, key, 0, length))
+                return _values[slot];
+
+            slot = (slot + 1) & _mask;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.util.HashMap;
+
+// Trie of directory paths by path components.
+//
+// Finds which of the added directories contain a path in a single pass over
+// the path, without touching the file system. Matching is done on component
+// boundaries: "/a/b" contains "/a/b" and "/a/b/c" but not "/a/bc". If several
+// added directories contain the path, the one added first wins. Paths are
+// expected to be absolute and normalized (canonical).
+public class PathPrefixTrie<V>
+{
+    public static final class Match<V>
+    {
+        public final V value;
+
+        // Length of the matched directory prefix in the path
+        public final int prefixLength;
+
+        Match (V value, int prefixLength)
+        {
+            this.value = value;
+            this.prefixLength = prefixLength;
+        }
+    }
+
+    private static final class Node<V>
+    {
+        HashMap<String, Node<V>> children;
+        V value;
+        int order;
+    }
+
+    private final Node<V> _root = new Node<V>();
+    private int _count = 0;
+
+    // Adds a directory, ignored if the same directory is already added
+    public void add (String path, V value)
+    {
+        Node<V> node = _root;
+        int i = 0;
+
+        while ((i = nextComponent(path, i)) < path.length()) {
+            int end = componentEnd(path, i);
+            String component = path.substring(i, end);
+
+            if (node.children == null)
+                node.children = new HashMap<String, Node<V>>();
+
+            Node<V> child = node.children.get(component);
+
+            if (child == null) {
+                child = new Node<V>();
+                node.children.put(component, child);
+            }
+
+            node = child;
+            i = end;
+        }
+
+        if (node.value == null) {
+            node.value = value;
+            node.order = _count++;
+        }
+    }
+
+    /**
+     * @return the first added directory containing the path, or null if there is none
+     */
+    public Match<V> find (String path)
+    {
+        Node<V> node = _root;
+        Node<V> best = null;
+        int bestLength = 0;
+        int i = 0;
+
+        while (true) {
+            if (node.value != null && (best == null || node.order < best.order)) {
+                best = node;
+                bestLength = i;
+            }
+
+            i = nextComponent(path, i);
+
+            if (i >= path.length() || node.children == null)
+                break;
+
+            int end = componentEnd(path, i);
+            node = node.children.get(path.substring(i, end));
+
+            if (node == null)
+                break;
+
+            i = end;
+        }
+
+        return best != null ? new Match<V>(best.value, bestLength) : null;
+    }
+
+    private static int nextComponent (String path, int i)
+    {
+        while (i < path.length() && path.charAt(i) == '/')
+            i++;
+
+        return i;
+    }
+
+    private static int componentEnd (String path, int i)
+    {
+        int end = path.indexOf('/', i);
+        return end < 0 ? path.length() : end;
+    }
+}
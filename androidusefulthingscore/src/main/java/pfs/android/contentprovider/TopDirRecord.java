@@ -0,0 +1,52 @@
+////////////////////////////////////////////////////////////////////////////////
+// Copyright (c) 2026 Vladislav Trifochkin
+//
+// This file is part of `Android support library`.
+//
+// Changelog:
+//      2026.10.17 Initial version.
+////////////////////////////////////////////////////////////////////////////////
+package pfs.android.contentprovider;
+
+import java.io.File;
+
+// Top directory record of `provider_top_dirs` string array:
+//
+//      <directory relative to base directory>[;<display name>[;<options>]]
+//
+// Options: `nosubdirs` - do not show subdirectories.
+public final class TopDirRecord
+{
+    public final String dir;
+    public final String displayName;
+    public final boolean nosubdirs;
+
+    private TopDirRecord (String dir, String displayName, boolean nosubdirs)
+    {
+        this.dir = dir;
+        this.displayName = displayName;
+        this.nosubdirs = nosubdirs;
+    }
+
+    public static TopDirRecord parse (String record)
+    {
+        String[] cred = record.split(";");
+        String dir = cred[0];
+        String displayName = cred.length > 1 ? cred[1] : cred[0];
+
+        // Options specified
+        boolean nosubdirs = cred.length > 2 && cred[2].contains("nosubdirs");
+
+        return new TopDirRecord(dir, displayName, nosubdirs);
+    }
+
+    /**
+     * @return absolute path of the top directory
+     */
+    public File folder (File baseDir)
+    {
+        // NOTE. Do not use getCanonicalFile() here. Need to save base directory prefix when
+        // top directory can be outside of base directory (started with `..`).
+        return new File(baseDir + File.separator + dir).getAbsoluteFile();
+    }
+}